@@ -0,0 +1,51 @@
+package com.example.miniMLP.benchmarks;
+
+import com.example.miniMLP.ml.PackedDataset;
+import com.example.miniMLP.utils.CSVUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+@State(Scope.Benchmark)
+public class CsvBenchmark {
+    private static final String[] LABELS = {"e", "l", "f"};
+
+    private Path csv;
+
+    // A dataset.csv-shaped file (label followed by 784 0/1 fields) with seeded content.
+    @Setup
+    public void setup() throws IOException {
+        csv = Files.createTempFile("bench-dataset", ".csv");
+        Random rnd = new Random(Fixtures.SEED);
+        try (BufferedWriter out = Files.newBufferedWriter(csv)) {
+            for (int r = 0; r < Fixtures.SAMPLES; r++) {
+                float[] pixels = Fixtures.drawing(rnd);
+                out.write(LABELS[rnd.nextInt(LABELS.length)]);
+                for (float p : pixels) {
+                    out.write(p > 0f ? ",1" : ",0");
+                }
+                out.newLine();
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(csv);
+    }
+
+    @Benchmark
+    public PackedDataset parse() {
+        return CSVUtils.loadPackedDataset(csv.toString(), Fixtures.GRID);
+    }
+}
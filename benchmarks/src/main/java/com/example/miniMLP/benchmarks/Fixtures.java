@@ -0,0 +1,75 @@
+package com.example.miniMLP.benchmarks;
+
+import com.example.miniMLP.ml.PackedDataset;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+// Deterministic inputs shared by the benchmarks, so every run measures exactly the same work.
+final class Fixtures {
+    static final long SEED = 42L;
+    static final int GRID = 28;
+    static final int INPUT = GRID * GRID;
+    static final int HIDDEN = 128;
+    static final int OUTPUT = 3;
+    static final int SAMPLES = 750;
+
+    private Fixtures() {
+    }
+
+    // A few random thick strokes rasterized onto the grid, roughly as sparse as a real drawing.
+    static float[] drawing(Random rnd) {
+        float[] pixels = new float[INPUT];
+        int strokes = 2 + rnd.nextInt(3);
+        for (int s = 0; s < strokes; s++) {
+            float x0 = 4 + rnd.nextFloat() * 20, y0 = 4 + rnd.nextFloat() * 20;
+            float x1 = 4 + rnd.nextFloat() * 20, y1 = 4 + rnd.nextFloat() * 20;
+            for (int t = 0; t <= 40; t++) {
+                int x = Math.round(x0 + (x1 - x0) * t / 40f);
+                int y = Math.round(y0 + (y1 - y0) * t / 40f);
+                for (int dy = 0; dy <= 1; dy++) {
+                    for (int dx = 0; dx <= 1; dx++) {
+                        pixels[Math.min(GRID - 1, y + dy) * GRID + Math.min(GRID - 1, x + dx)] = 1f;
+                    }
+                }
+            }
+        }
+        return pixels;
+    }
+
+    static float[][] grid(float[] pixels) {
+        float[][] out = new float[GRID][GRID];
+        for (int y = 0; y < GRID; y++) {
+            System.arraycopy(pixels, y * GRID, out[y], 0, GRID);
+        }
+        return out;
+    }
+
+    static PackedDataset dataset(Random rnd, int count) {
+        PackedDataset data = new PackedDataset(INPUT, count);
+        for (int i = 0; i < count; i++) {
+            data.add(drawing(rnd), rnd.nextInt(OUTPUT));
+        }
+        return data;
+    }
+
+    // Same size and type as the canvas in AppFrame, with a few brush strokes like DrawingPanel makes.
+    static BufferedImage canvas(Random rnd) {
+        BufferedImage canvas = new BufferedImage(600, 750, BufferedImage.TYPE_BYTE_GRAY);
+        Graphics2D g = canvas.createGraphics();
+        g.setColor(Color.WHITE);
+        g.fillRect(0, 0, canvas.getWidth(), canvas.getHeight());
+        g.setColor(Color.BLACK);
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g.setStroke(new BasicStroke(13, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
+        for (int s = 0; s < 4; s++) {
+            g.drawLine(100 + rnd.nextInt(400), 100 + rnd.nextInt(400), 100 + rnd.nextInt(400), 100 + rnd.nextInt(400));
+        }
+        g.dispose();
+        return canvas;
+    }
+}
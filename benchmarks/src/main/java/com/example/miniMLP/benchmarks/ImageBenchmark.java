@@ -0,0 +1,60 @@
+package com.example.miniMLP.benchmarks;
+
+import com.example.miniMLP.ui.AppFunc;
+import com.example.miniMLP.ui.CanvasSampler;
+import com.example.miniMLP.utils.CSVUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector", "-Djava.awt.headless=true"})
+@State(Scope.Thread)
+public class ImageBenchmark {
+    private BufferedImage canvas;
+    private float[][] pixels;
+    private float[][] offCenter;
+    private CanvasSampler sampler;
+    private Rectangle stroke;
+
+    @Setup
+    public void setup() {
+        Random rnd = new Random(Fixtures.SEED);
+        canvas = Fixtures.canvas(rnd);
+        pixels = new float[Fixtures.GRID][Fixtures.GRID];
+        sampler = new CanvasSampler(canvas, Fixtures.GRID);
+        sampler.sample(pixels);
+        // One drag event of the 13 px pen.
+        stroke = new Rectangle(290, 290, 30, 30);
+        // Shifted into a corner so centerImage has to move every pixel.
+        float[][] drawing = Fixtures.grid(Fixtures.drawing(rnd));
+        offCenter = new float[Fixtures.GRID][Fixtures.GRID];
+        for (int y = 0; y + 3 < Fixtures.GRID; y++) {
+            System.arraycopy(drawing[y + 3], 3, offCenter[y], 0, Fixtures.GRID - 3);
+        }
+    }
+
+    @Benchmark
+    public float[][] readPixelsFromCanvas() {
+        AppFunc.readPixelsFromCanvas(canvas, pixels, Fixtures.GRID);
+        return pixels;
+    }
+
+    @Benchmark
+    public float[][] sampleAfterStroke() {
+        sampler.markDirty(stroke);
+        sampler.sample(pixels);
+        return pixels;
+    }
+
+    @Benchmark
+    public float[][] centerImage() {
+        return CSVUtils.centerImage(offCenter, Fixtures.GRID);
+    }
+}
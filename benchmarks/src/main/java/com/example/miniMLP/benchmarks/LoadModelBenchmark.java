@@ -0,0 +1,48 @@
+package com.example.miniMLP.benchmarks;
+
+import com.example.miniMLP.ml.MLP;
+import com.example.miniMLP.utils.ModelUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+@State(Scope.Benchmark)
+public class LoadModelBenchmark {
+    // binary: current ModelUtils format; legacy: the old ObjectOutputStream files that are still accepted.
+    @Param({"binary", "legacy"})
+    public String format;
+
+    private Path file;
+
+    @Setup
+    public void setup() throws IOException {
+        MLP mlp = new MLP(Fixtures.INPUT, Fixtures.HIDDEN, Fixtures.OUTPUT, Fixtures.SEED);
+        file = Files.createTempFile("bench-model", ".bin");
+        if (format.equals("binary")) {
+            ModelUtils.saveModel(mlp, file.toString());
+        } else {
+            try (ObjectOutputStream out = new ObjectOutputStream(Files.newOutputStream(file))) {
+                out.writeObject(mlp);
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public MLP loadModel() {
+        return ModelUtils.loadModel(file.toString());
+    }
+}
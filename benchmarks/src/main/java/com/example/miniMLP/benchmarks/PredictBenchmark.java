@@ -0,0 +1,48 @@
+package com.example.miniMLP.benchmarks;
+
+import com.example.miniMLP.ml.InferenceSession;
+import com.example.miniMLP.ml.MLP;
+import com.example.miniMLP.ml.PredictionResult;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+@State(Scope.Thread)
+public class PredictBenchmark {
+    private MLP mlp;
+    private InferenceSession session;
+    private float[][] inputs;
+    private int next;
+
+    @Setup
+    public void setup() {
+        Random rnd = new Random(Fixtures.SEED);
+        mlp = new MLP(Fixtures.INPUT, Fixtures.HIDDEN, Fixtures.OUTPUT, Fixtures.SEED);
+        session = mlp.newSession();
+        inputs = new float[64][];
+        for (int i = 0; i < inputs.length; i++) {
+            inputs[i] = Fixtures.drawing(rnd);
+        }
+    }
+
+    private float[] nextInput() {
+        next = (next + 1) & (inputs.length - 1);
+        return inputs[next];
+    }
+
+    @Benchmark
+    public PredictionResult predict() {
+        return mlp.predict(nextInput());
+    }
+
+    @Benchmark
+    public PredictionResult sessionPredict() {
+        return session.predict(nextInput());
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.miniMLP.benchmarks;
+
+import com.example.miniMLP.ml.MLP;
+import com.example.miniMLP.ml.PackedDataset;
+import com.example.miniMLP.ml.SgdOptimizer;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+@State(Scope.Thread)
+public class TrainBenchmark {
+    private MLP mlp;
+    private PackedDataset data;
+    private float[][] inputs;
+    private float[][] targets;
+    private int next;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        Random rnd = new Random(Fixtures.SEED);
+        mlp = new MLP(Fixtures.INPUT, Fixtures.HIDDEN, Fixtures.OUTPUT, Fixtures.SEED);
+        data = Fixtures.dataset(rnd, Fixtures.SAMPLES);
+        inputs = new float[data.size()][Fixtures.INPUT];
+        targets = new float[data.size()][Fixtures.OUTPUT];
+        for (int i = 0; i < data.size(); i++) {
+            data.unpack(i, inputs[i]);
+            targets[i][data.label(i)] = 1f;
+        }
+        next = 0;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public float trainOnExample() {
+        int i = next;
+        next = next + 1 == inputs.length ? 0 : next + 1;
+        return mlp.trainOnExample(inputs[i], targets[i], 0.01f);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void epochPerSample() {
+        mlp.train(data, 1, 0.01f);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void epochMiniBatch() {
+        mlp.train(data, 1, 32, new SgdOptimizer(0.1f));
+    }
+}
@@ -1,10 +1,13 @@
 package com.example.miniMLP;
 
 import javax.swing.SwingUtilities;
+import com.example.miniMLP.metrics.ConsoleListener;
+import com.example.miniMLP.metrics.Metrics;
 import com.example.miniMLP.ui.AppFrame;
 
 public class Main {
     public static void main(String[] args) {
+        Metrics.addListener(new ConsoleListener());
         SwingUtilities.invokeLater(AppFrame::new);
     }
 }
@@ -0,0 +1,46 @@
+package com.example.miniMLP;
+
+import com.example.miniMLP.metrics.ConsoleListener;
+import com.example.miniMLP.metrics.Metrics;
+import com.example.miniMLP.ml.MLP;
+import com.example.miniMLP.ml.PredictionBatcher;
+import com.example.miniMLP.ml.Predictor;
+import com.example.miniMLP.server.PredictionServer;
+import com.example.miniMLP.utils.ModelUtils;
+
+import java.io.File;
+import java.io.IOException;
+
+// Headless entry point: serves mlpModel.bin on http://localhost:<port>.
+// Usage: ServerMain [port] [model file]
+// fp32 models are served through a PredictionBatcher tuned with -DminiMLP.batch.max (32),
+// -DminiMLP.batch.waitMicros (200) and -DminiMLP.batch.queue (1024); -DminiMLP.batch.max=0 turns it off.
+public class ServerMain {
+    public static void main(String[] args) {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+        String modelPath = args.length > 1 ? args[1] : "mlpModel.bin";
+        if (!new File(modelPath).exists()) {
+            System.err.println("Nie znaleziono pliku modelu: " + modelPath);
+            System.exit(1);
+        }
+        Metrics.addListener(new ConsoleListener(false));
+        Predictor model = ModelUtils.loadPredictor(modelPath);
+        if (model == null) {
+            System.exit(1);
+        }
+        try {
+            int maxBatch = Integer.getInteger("miniMLP.batch.max", 32);
+            PredictionBatcher batcher = model instanceof MLP mlp && maxBatch > 0
+                    ? new PredictionBatcher(mlp, maxBatch, Integer.getInteger("miniMLP.batch.waitMicros", 200),
+                            Integer.getInteger("miniMLP.batch.queue", 1024))
+                    : null;
+            PredictionServer server = new PredictionServer(model, batcher, port);
+            Runtime.getRuntime().addShutdownHook(new Thread(server::close, "server-shutdown"));
+            server.start();
+            Metrics.message("Serwer nasłuchuje na http://localhost:" + server.getPort());
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.miniMLP.metrics;
+
+// The console output the training and test loops used to print directly.
+public class ConsoleListener implements ModelListener {
+    private static final String[] SYMBOLS = {"e", "l", "f"};
+
+    private final boolean perSample;
+
+    public ConsoleListener(boolean perSample) {
+        this.perSample = perSample;
+    }
+
+    public ConsoleListener() {
+        this(true);
+    }
+
+    @Override
+    public void onEpoch(EpochStats stats) {
+        if (Float.isNaN(stats.validationLoss)) {
+            System.out.println("Epoch " + stats.epoch + " - Loss: " + stats.loss);
+        } else {
+            System.out.println("Epoch " + stats.epoch + " - Loss: " + stats.loss
+                    + " - Val loss: " + stats.validationLoss + " - Val acc: " + stats.validationAccuracy);
+        }
+    }
+
+    @Override
+    public void onTestSample(int row, int expected, int predicted, float confidence) {
+        if (perSample) {
+            System.out.printf("Rysunek %d: prawdziwy=%s, przewidywany=%s, pewność=%.2f%n",
+                    row + 1, symbol(expected), symbol(predicted), confidence);
+        }
+    }
+
+    @Override
+    public void onEvaluation(int total, int correct) {
+        System.out.printf("Razem testów: %d, Poprawnych: %d%n", total, correct);
+        System.out.printf("Dokładność: %.2f%n", total == 0 ? 0f : (float) correct / total);
+    }
+
+    @Override
+    public void onMessage(String message) {
+        System.out.println(message);
+    }
+
+    @Override
+    public void onWarning(String message) {
+        System.err.println(message);
+    }
+
+    private static String symbol(int idx) {
+        return idx >= 0 && idx < SYMBOLS.length ? SYMBOLS[idx] : "?";
+    }
+}
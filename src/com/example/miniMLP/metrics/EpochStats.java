@@ -0,0 +1,23 @@
+package com.example.miniMLP.metrics;
+
+// One finished training epoch. Validation fields are NaN when the run has no validation split.
+public class EpochStats {
+    public int epoch;
+    public float loss;
+    public long samples;
+    public long nanos;
+    public float learningRate = Float.NaN;
+    public float validationLoss = Float.NaN;
+    public float validationAccuracy = Float.NaN;
+
+    public EpochStats(int epoch, float loss, long samples, long nanos) {
+        this.epoch = epoch;
+        this.loss = loss;
+        this.samples = samples;
+        this.nanos = nanos;
+    }
+
+    public double samplesPerSecond() {
+        return nanos == 0 ? 0.0 : samples * 1e9 / nanos;
+    }
+}
@@ -0,0 +1,254 @@
+package com.example.miniMLP.metrics;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+
+// Process-wide training and inference metrics. Counters are LongAdders and latencies go into
+// Histograms, so hot paths never contend on a lock. Registered as an MXBean on first use.
+public final class Metrics implements MetricsMXBean {
+    public static final String OBJECT_NAME = "com.example.miniMLP:type=Metrics";
+    private static final Metrics INSTANCE = new Metrics();
+
+    static {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(INSTANCE, new ObjectName(OBJECT_NAME));
+        } catch (Exception | LinkageError e) {
+            System.err.println("Nie można zarejestrować MBean " + OBJECT_NAME + ": " + e);
+        }
+    }
+
+    private final List<ModelListener> listeners = new CopyOnWriteArrayList<>();
+    private final LongAdder epochs = new LongAdder();
+    private final LongAdder samplesTrained = new LongAdder();
+    private final Histogram epochNanos = new Histogram();
+    private final Histogram predictNanos = new Histogram();
+    private final Histogram batchWaitNanos = new Histogram();
+    private final Histogram modelLoadNanos = new Histogram();
+    private volatile long lastEpochNanos;
+    private volatile double samplesPerSecond;
+    private volatile float lastLoss = Float.NaN;
+    private volatile float lastValidationAccuracy = Float.NaN;
+    private volatile float lastTestAccuracy = Float.NaN;
+    private volatile long lastModelLoadNanos;
+
+    private Metrics() {
+    }
+
+    public static Metrics get() {
+        return INSTANCE;
+    }
+
+    public static void addListener(ModelListener listener) {
+        INSTANCE.listeners.add(listener);
+    }
+
+    public static void removeListener(ModelListener listener) {
+        INSTANCE.listeners.remove(listener);
+    }
+
+    public static void epoch(EpochStats stats) {
+        Metrics m = INSTANCE;
+        m.epochs.increment();
+        m.samplesTrained.add(stats.samples);
+        m.epochNanos.record(stats.nanos);
+        m.lastEpochNanos = stats.nanos;
+        m.samplesPerSecond = stats.samplesPerSecond();
+        m.lastLoss = stats.loss;
+        if (!Float.isNaN(stats.validationAccuracy)) {
+            m.lastValidationAccuracy = stats.validationAccuracy;
+        }
+        for (ModelListener l : m.listeners) {
+            l.onEpoch(stats);
+        }
+    }
+
+    public static void epoch(int epoch, float loss, long samples, long nanos) {
+        epoch(new EpochStats(epoch, loss, samples, nanos));
+    }
+
+    public static void predict(long nanos) {
+        INSTANCE.predictNanos.record(nanos);
+    }
+
+    // Time a request spent queued in a PredictionBatcher before its batch was scored.
+    public static void batchWait(long nanos) {
+        INSTANCE.batchWaitNanos.record(nanos);
+    }
+
+    public static void modelLoad(long nanos) {
+        INSTANCE.modelLoadNanos.record(nanos);
+        INSTANCE.lastModelLoadNanos = nanos;
+    }
+
+    // Listeners are only asked for per-sample events when someone is listening.
+    public static boolean hasListeners() {
+        return !INSTANCE.listeners.isEmpty();
+    }
+
+    public static void testSample(int row, int expected, int predicted, float confidence) {
+        for (ModelListener l : INSTANCE.listeners) {
+            l.onTestSample(row, expected, predicted, confidence);
+        }
+    }
+
+    public static void evaluation(int total, int correct) {
+        if (total > 0) {
+            INSTANCE.lastTestAccuracy = (float) correct / total;
+        }
+        for (ModelListener l : INSTANCE.listeners) {
+            l.onEvaluation(total, correct);
+        }
+    }
+
+    public static void message(String message) {
+        for (ModelListener l : INSTANCE.listeners) {
+            l.onMessage(message);
+        }
+    }
+
+    public static void warning(String message) {
+        for (ModelListener l : INSTANCE.listeners) {
+            l.onWarning(message);
+        }
+    }
+
+    public Histogram predictLatency() {
+        return predictNanos;
+    }
+
+    public Histogram batchWait() {
+        return batchWaitNanos;
+    }
+
+    public Histogram epochTime() {
+        return epochNanos;
+    }
+
+    public Histogram modelLoadTime() {
+        return modelLoadNanos;
+    }
+
+    @Override
+    public long getEpochs() {
+        return epochs.sum();
+    }
+
+    @Override
+    public long getSamplesTrained() {
+        return samplesTrained.sum();
+    }
+
+    @Override
+    public double getLastEpochMillis() {
+        return lastEpochNanos / 1e6;
+    }
+
+    @Override
+    public double getEpochMillisP50() {
+        return epochNanos.percentile(0.5) / 1e6;
+    }
+
+    @Override
+    public double getEpochMillisP99() {
+        return epochNanos.percentile(0.99) / 1e6;
+    }
+
+    @Override
+    public double getSamplesPerSecond() {
+        return samplesPerSecond;
+    }
+
+    @Override
+    public float getLastLoss() {
+        return lastLoss;
+    }
+
+    @Override
+    public float getLastValidationAccuracy() {
+        return lastValidationAccuracy;
+    }
+
+    @Override
+    public float getLastTestAccuracy() {
+        return lastTestAccuracy;
+    }
+
+    @Override
+    public long getPredictions() {
+        return predictNanos.count();
+    }
+
+    @Override
+    public double getPredictMicrosMean() {
+        return predictNanos.mean() / 1e3;
+    }
+
+    @Override
+    public double getPredictMicrosP50() {
+        return predictNanos.percentile(0.5) / 1e3;
+    }
+
+    @Override
+    public double getPredictMicrosP90() {
+        return predictNanos.percentile(0.9) / 1e3;
+    }
+
+    @Override
+    public double getPredictMicrosP99() {
+        return predictNanos.percentile(0.99) / 1e3;
+    }
+
+    @Override
+    public double getPredictMicrosP999() {
+        return predictNanos.percentile(0.999) / 1e3;
+    }
+
+    @Override
+    public double getPredictMicrosMax() {
+        return predictNanos.max() / 1e3;
+    }
+
+    @Override
+    public double getBatchWaitMicrosP50() {
+        return batchWaitNanos.percentile(0.5) / 1e3;
+    }
+
+    @Override
+    public double getBatchWaitMicrosP99() {
+        return batchWaitNanos.percentile(0.99) / 1e3;
+    }
+
+    @Override
+    public long getModelLoads() {
+        return modelLoadNanos.count();
+    }
+
+    @Override
+    public double getLastModelLoadMillis() {
+        return lastModelLoadNanos / 1e6;
+    }
+
+    @Override
+    public double getModelLoadMillisMax() {
+        return modelLoadNanos.max() / 1e6;
+    }
+
+    @Override
+    public void reset() {
+        epochs.reset();
+        samplesTrained.reset();
+        epochNanos.reset();
+        predictNanos.reset();
+        batchWaitNanos.reset();
+        modelLoadNanos.reset();
+        lastEpochNanos = 0;
+        samplesPerSecond = 0;
+        lastLoss = Float.NaN;
+        lastValidationAccuracy = Float.NaN;
+        lastTestAccuracy = Float.NaN;
+        lastModelLoadNanos = 0;
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.miniMLP.metrics;
+
+// Exposed over JMX as com.example.miniMLP:type=Metrics. Times are in milliseconds or microseconds as named.
+public interface MetricsMXBean {
+    long getEpochs();
+
+    long getSamplesTrained();
+
+    double getLastEpochMillis();
+
+    double getEpochMillisP50();
+
+    double getEpochMillisP99();
+
+    double getSamplesPerSecond();
+
+    float getLastLoss();
+
+    float getLastValidationAccuracy();
+
+    float getLastTestAccuracy();
+
+    long getPredictions();
+
+    double getPredictMicrosMean();
+
+    double getPredictMicrosP50();
+
+    double getPredictMicrosP90();
+
+    double getPredictMicrosP99();
+
+    double getPredictMicrosP999();
+
+    double getPredictMicrosMax();
+
+    double getBatchWaitMicrosP50();
+
+    double getBatchWaitMicrosP99();
+
+    long getModelLoads();
+
+    double getLastModelLoadMillis();
+
+    double getModelLoadMillisMax();
+
+    void reset();
+}
@@ -0,0 +1,24 @@
+package com.example.miniMLP.metrics;
+
+// Receives training and evaluation events; register with Metrics.addListener.
+// Callbacks run on the thread that produced the event, so they should return quickly.
+public interface ModelListener {
+    default void onEpoch(EpochStats stats) {
+    }
+
+    // One evaluated sample; row is 0-based.
+    default void onTestSample(int row, int expected, int predicted, float confidence) {
+    }
+
+    default void onEvaluation(int total, int correct) {
+    }
+
+    // Status text for the user, e.g. a training summary or "model saved".
+    default void onMessage(String message) {
+    }
+
+    // Something the user should fix, e.g. a malformed dataset line; reported like any other message by default.
+    default void onWarning(String message) {
+        onMessage(message);
+    }
+}
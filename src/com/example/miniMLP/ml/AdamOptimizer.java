@@ -0,0 +1,89 @@
+package com.example.miniMLP.ml;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+// Adam (Kingma & Ba) with bias-corrected first and second moment estimates.
+public class AdamOptimizer implements Optimizer {
+    private float lr;
+    private final float beta1;
+    private final float beta2;
+    private final float epsilon;
+    private float[][] m = new float[0][];
+    private float[][] v = new float[0][];
+    private long step;
+    private float correction1;
+    private float correction2;
+
+    public AdamOptimizer(float lr, float beta1, float beta2, float epsilon) {
+        this.lr = lr;
+        this.beta1 = beta1;
+        this.beta2 = beta2;
+        this.epsilon = epsilon;
+    }
+
+    public AdamOptimizer(float lr) {
+        this(lr, 0.9f, 0.999f, 1e-8f);
+    }
+
+    @Override
+    public float getLearningRate() {
+        return lr;
+    }
+
+    @Override
+    public void setLearningRate(float lr) {
+        this.lr = lr;
+    }
+
+    @Override
+    public void beginStep() {
+        step++;
+        correction1 = (float) (1 - Math.pow(beta1, step));
+        correction2 = (float) (1 - Math.pow(beta2, step));
+    }
+
+    @Override
+    public void update(int slot, float[] param, float[] grad, float gradScale) {
+        ensureState(slot, param.length);
+        float[] ms = m[slot];
+        float[] vs = v[slot];
+        float stepSize = lr / correction1;
+        float invSqrtCorrection2 = (float) (1 / Math.sqrt(correction2));
+        for (int i = 0; i < param.length; i++) {
+            float g = grad[i] * gradScale;
+            float mi = beta1 * ms[i] + (1 - beta1) * g;
+            float vi = beta2 * vs[i] + (1 - beta2) * g * g;
+            ms[i] = mi;
+            vs[i] = vi;
+            param[i] -= stepSize * mi / ((float) Math.sqrt(vi) * invSqrtCorrection2 + epsilon);
+        }
+    }
+
+    @Override
+    public void writeState(DataOutputStream out) throws IOException {
+        out.writeLong(step);
+        Optimizer.writeSlots(out, m);
+        Optimizer.writeSlots(out, v);
+    }
+
+    @Override
+    public void readState(DataInputStream in) throws IOException {
+        step = in.readLong();
+        m = Optimizer.readSlots(in);
+        v = Optimizer.readSlots(in);
+    }
+
+    private void ensureState(int slot, int length) {
+        if (slot >= m.length) {
+            m = Arrays.copyOf(m, slot + 1);
+            v = Arrays.copyOf(v, slot + 1);
+        }
+        if (m[slot] == null) {
+            m[slot] = new float[length];
+            v[slot] = new float[length];
+        }
+    }
+}
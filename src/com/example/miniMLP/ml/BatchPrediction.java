@@ -0,0 +1,15 @@
+package com.example.miniMLP.ml;
+
+public class BatchPrediction {
+    public int[] predictedIndex;
+    public float[] confidence;
+
+    public BatchPrediction(int[] predictedIndex, float[] confidence) {
+        this.predictedIndex = predictedIndex;
+        this.confidence = confidence;
+    }
+
+    public int size() {
+        return predictedIndex.length;
+    }
+}
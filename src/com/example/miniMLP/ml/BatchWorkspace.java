@@ -0,0 +1,48 @@
+package com.example.miniMLP.ml;
+
+import java.util.Arrays;
+
+final class BatchWorkspace {
+    interface Loader {
+        void load(BatchWorkspace ws, int[] order, int start, int count);
+    }
+
+    final int capacity;
+    final float[] x;
+    final float[] t;
+    final float[] hidden;
+    final float[] output;
+    final float[] dOutput;
+    final float[] dHidden;
+
+    BatchWorkspace(int capacity, int inputSize, int hiddenSize, int outputSize) {
+        this.capacity = capacity;
+        x = new float[capacity * inputSize];
+        t = new float[capacity * outputSize];
+        hidden = new float[capacity * hiddenSize];
+        output = new float[capacity * outputSize];
+        dOutput = new float[capacity * outputSize];
+        dHidden = new float[capacity * hiddenSize];
+    }
+
+    void load(float[][] inputs, float[][] targets, int[] order, int start, int count) {
+        int inputSize = x.length / capacity;
+        int outputSize = t.length / capacity;
+        for (int b = 0; b < count; b++) {
+            int idx = order[start + b];
+            System.arraycopy(inputs[idx], 0, x, b * inputSize, inputSize);
+            System.arraycopy(targets[idx], 0, t, b * outputSize, outputSize);
+        }
+    }
+
+    void load(PackedDataset data, int[] order, int start, int count) {
+        int inputSize = x.length / capacity;
+        int outputSize = t.length / capacity;
+        Arrays.fill(t, 0, count * outputSize, 0f);
+        for (int b = 0; b < count; b++) {
+            int idx = order[start + b];
+            data.unpack(idx, x, b * inputSize);
+            t[b * outputSize + data.label(idx)] = 1f;
+        }
+    }
+}
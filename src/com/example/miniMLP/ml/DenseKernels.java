@@ -0,0 +1,82 @@
+package com.example.miniMLP.ml;
+
+import java.util.Arrays;
+
+final class DenseKernels {
+    // Number of weight rows kept hot in cache while the whole batch is swept over them.
+    static final int ROW_BLOCK = 64;
+
+    private DenseKernels() {
+    }
+
+    // h[count x cols] = x[count x rows] * w[rows x cols] (+ bias), w row-major and streamed once per batch in row blocks.
+    static void matMul(float[] x, int xStart, int count, int rows, float[] w, float[] bias, float[] h, int cols) {
+        KernelBackend k = Kernels.current();
+        for (int b = 0; b < count; b++) {
+            if (bias != null) {
+                System.arraycopy(bias, 0, h, b * cols, cols);
+            } else {
+                Arrays.fill(h, b * cols, (b + 1) * cols, 0f);
+            }
+        }
+        for (int i0 = 0; i0 < rows; i0 += ROW_BLOCK) {
+            int i1 = Math.min(i0 + ROW_BLOCK, rows);
+            for (int b = 0; b < count; b++) {
+                int xOff = xStart + b * rows;
+                int hOff = b * cols;
+                for (int i = i0; i < i1; i++) {
+                    float xi = x[xOff + i];
+                    if (xi != 0f) {
+                        k.axpy(xi, w, i * cols, h, hOff, cols);
+                    }
+                }
+            }
+        }
+    }
+
+    // y[count x rows] = d[count x cols] * w^T (+ bias), w row-major [rows x cols]: one dot product per output.
+    static void matMulTransposed(float[] d, int count, int cols, float[] w, float[] bias, float[] y, int rows) {
+        KernelBackend k = Kernels.current();
+        for (int b = 0; b < count; b++) {
+            int dOff = b * cols;
+            int yOff = b * rows;
+            for (int r = 0; r < rows; r++) {
+                float sum = k.dot(d, dOff, w, r * cols, cols);
+                y[yOff + r] = bias != null ? sum + bias[r] : sum;
+            }
+        }
+    }
+
+    // g[rows x cols] += x^T[rows x count] * d[count x cols]
+    static void accumulateOuter(float[] x, int count, int rows, float[] d, int cols, float[] g) {
+        KernelBackend k = Kernels.current();
+        for (int i0 = 0; i0 < rows; i0 += ROW_BLOCK) {
+            int i1 = Math.min(i0 + ROW_BLOCK, rows);
+            for (int b = 0; b < count; b++) {
+                int xOff = b * rows;
+                int dOff = b * cols;
+                for (int i = i0; i < i1; i++) {
+                    float xi = x[xOff + i];
+                    if (xi != 0f) {
+                        k.axpy(xi, d, dOff, g, i * cols, cols);
+                    }
+                }
+            }
+        }
+    }
+
+    static void relu(float[] v, int len) {
+        for (int i = 0; i < len; i++) {
+            if (v[i] < 0f) {
+                v[i] = 0f;
+            }
+        }
+    }
+
+    static void softmaxRows(float[] v, int count, int cols) {
+        KernelBackend k = Kernels.current();
+        for (int b = 0; b < count; b++) {
+            k.softmax(v, b * cols, cols);
+        }
+    }
+}
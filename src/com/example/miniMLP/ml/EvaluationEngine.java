@@ -0,0 +1,137 @@
+package com.example.miniMLP.ml;
+
+import com.example.miniMLP.metrics.Histogram;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+
+// Scores a dataset in parallel batches of rows. Every batch fills its own confusion matrix and
+// the matrices are summed at the end, so workers share nothing but the latency histogram and the
+// skipped-row counter. An fp32 MLP is scored straight from the packed bits; other predictors get
+// unpacked rows. Rows labelled with a class the model does not have are skipped and only counted.
+public class EvaluationEngine implements AutoCloseable {
+    // Receives every scored row, not the skipped ones. Called from the worker threads, rows arrive in no particular order.
+    public interface RowSink {
+        void accept(int row, int expected, int predicted, float confidence);
+    }
+
+    private final ForkJoinPool pool;
+    private final int batchSize;
+
+    public EvaluationEngine(int threads, int batchSize) {
+        this.pool = new ForkJoinPool(Math.max(1, threads));
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    public EvaluationEngine() {
+        this(Runtime.getRuntime().availableProcessors(), 1024);
+    }
+
+    public EvaluationReport evaluate(Predictor model, PackedDataset data) {
+        return evaluate(model, data, null);
+    }
+
+    // sink may be null.
+    public EvaluationReport evaluate(Predictor model, PackedDataset data, RowSink sink) {
+        long started = System.nanoTime();
+        int classes = model.getOutputSize();
+        int n = data.size();
+        Histogram latency = new Histogram();
+        LongAdder skipped = new LongAdder();
+        List<Callable<int[][]>> tasks = new ArrayList<>();
+        for (int start = 0; start < n; start += batchSize) {
+            int from = start;
+            int to = Math.min(n, start + batchSize);
+            tasks.add(() -> scoreBatch(model, data, from, to, classes, latency, skipped, sink));
+        }
+
+        int[][] confusion = new int[classes][classes];
+        for (Future<int[][]> f : pool.invokeAll(tasks)) {
+            int[][] part;
+            try {
+                part = f.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Ewaluacja przerwana", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Błąd wątku ewaluacji", e.getCause());
+            }
+            for (int a = 0; a < classes; a++) {
+                for (int p = 0; p < classes; p++) {
+                    confusion[a][p] += part[a][p];
+                }
+            }
+        }
+        EvaluationReport report = report(confusion, latency, System.nanoTime() - started);
+        report.skipped = skipped.intValue();
+        return report;
+    }
+
+    private static int[][] scoreBatch(Predictor model, PackedDataset data, int from, int to, int classes,
+                                      Histogram latency, LongAdder skipped, RowSink sink) {
+        int[][] confusion = new int[classes][classes];
+        float[] probs = new float[classes];
+        MLP mlp = model instanceof MLP m ? m : null;
+        Workspace ws = mlp != null ? mlp.newWorkspace() : null;
+        float[] row = mlp != null ? null : new float[data.inputSize()];
+        for (int r = from; r < to; r++) {
+            int expected = data.label(r);
+            if (expected < 0 || expected >= classes) {
+                skipped.increment();
+                continue;
+            }
+            long t0 = System.nanoTime();
+            int predicted;
+            if (mlp != null) {
+                predicted = mlp.predictInto(data, r, probs, ws);
+            } else {
+                data.unpack(r, row);
+                predicted = model.predictInto(row, probs);
+            }
+            latency.record(System.nanoTime() - t0);
+            confusion[expected][predicted]++;
+            if (sink != null) {
+                sink.accept(r, expected, predicted, probs[predicted]);
+            }
+        }
+        return confusion;
+    }
+
+    private static EvaluationReport report(int[][] confusion, Histogram latency, long nanos) {
+        int classes = confusion.length;
+        EvaluationReport report = new EvaluationReport();
+        report.confusion = confusion;
+        report.precision = new float[classes];
+        report.recall = new float[classes];
+        for (int k = 0; k < classes; k++) {
+            int predictedK = 0;
+            int actualK = 0;
+            for (int o = 0; o < classes; o++) {
+                predictedK += confusion[o][k];
+                actualK += confusion[k][o];
+            }
+            report.total += actualK;
+            report.correct += confusion[k][k];
+            report.precision[k] = predictedK == 0 ? Float.NaN : (float) confusion[k][k] / predictedK;
+            report.recall[k] = actualK == 0 ? Float.NaN : (float) confusion[k][k] / actualK;
+        }
+        report.accuracy = report.total == 0 ? 0f : (float) report.correct / report.total;
+        report.latencyMicrosMean = latency.mean() / 1e3;
+        report.latencyMicrosP50 = latency.percentile(0.5) / 1e3;
+        report.latencyMicrosP99 = latency.percentile(0.99) / 1e3;
+        report.latencyMicrosMax = latency.max() / 1e3;
+        report.evaluationMillis = nanos / 1_000_000;
+        report.samplesPerSecond = nanos == 0 ? 0 : report.total / (nanos / 1e9);
+        return report;
+    }
+
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+}
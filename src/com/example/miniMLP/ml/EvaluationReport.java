@@ -0,0 +1,41 @@
+package com.example.miniMLP.ml;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+public class EvaluationReport {
+    public int total;
+    public int correct;
+    // Rows whose label is not one of the model's classes; not part of total or any other figure.
+    public int skipped;
+    public float accuracy;
+    // confusion[expected][predicted]
+    public int[][] confusion;
+    // Per class; NaN when the class was never predicted (precision) or never present (recall).
+    public float[] precision;
+    public float[] recall;
+    // Per-sample scoring time.
+    public double latencyMicrosMean;
+    public double latencyMicrosP50;
+    public double latencyMicrosP99;
+    public double latencyMicrosMax;
+    public long evaluationMillis;
+    public double samplesPerSecond;
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(String.format(Locale.ROOT,
+                "Razem testów: %d, poprawnych: %d, dokładność: %.4f, czas: %d ms (%.0f próbek/s), "
+                        + "opóźnienie µs: średnio %.2f, p50 %.2f, p99 %.2f, maks. %.2f",
+                total, correct, accuracy, evaluationMillis, samplesPerSecond,
+                latencyMicrosMean, latencyMicrosP50, latencyMicrosP99, latencyMicrosMax));
+        if (skipped > 0) {
+            sb.append(String.format(Locale.ROOT, ", pominiętych (etykieta spoza modelu): %d", skipped));
+        }
+        for (int k = 0; k < precision.length; k++) {
+            sb.append(String.format(Locale.ROOT, "%nKlasa %d: precyzja %.4f, czułość %.4f, macierz pomyłek %s",
+                    k, precision[k], recall[k], Arrays.toString(confusion[k])));
+        }
+        return sb.toString();
+    }
+}
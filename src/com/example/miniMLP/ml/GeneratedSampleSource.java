@@ -0,0 +1,47 @@
+package com.example.miniMLP.ml;
+
+// SampleSource backed by a generator function instead of a file, e.g. for synthetic or augmented data.
+public class GeneratedSampleSource implements SampleSource {
+    public interface Generator {
+        // Fills pixels for sample index and returns its class label.
+        int generate(long index, float[] pixels);
+    }
+
+    private final int inputSize;
+    private final long count;
+    private final Generator generator;
+    private final float[] pixels;
+    private long next;
+
+    public GeneratedSampleSource(int inputSize, long count, Generator generator) {
+        this.inputSize = inputSize;
+        this.count = count;
+        this.generator = generator;
+        this.pixels = new float[inputSize];
+    }
+
+    @Override
+    public int inputSize() {
+        return inputSize;
+    }
+
+    @Override
+    public void reset() {
+        next = 0;
+    }
+
+    @Override
+    public int read(PackedDataset chunk, int max) {
+        int n = 0;
+        while (n < max && next < count) {
+            int label = generator.generate(next++, pixels);
+            chunk.add(pixels, label);
+            n++;
+        }
+        return n;
+    }
+
+    @Override
+    public void close() {
+    }
+}
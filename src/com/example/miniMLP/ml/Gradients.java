@@ -0,0 +1,25 @@
+package com.example.miniMLP.ml;
+
+import java.util.Arrays;
+
+// Same flat layouts as the parameters they belong to (see MLP).
+final class Gradients {
+    final float[] w1;
+    final float[] b1;
+    final float[] w2;
+    final float[] b2;
+
+    Gradients(int inputSize, int hiddenSize, int outputSize) {
+        w1 = new float[inputSize * hiddenSize];
+        b1 = new float[hiddenSize];
+        w2 = new float[outputSize * hiddenSize];
+        b2 = new float[outputSize];
+    }
+
+    void clear() {
+        Arrays.fill(w1, 0f);
+        Arrays.fill(b1, 0f);
+        Arrays.fill(w2, 0f);
+        Arrays.fill(b2, 0f);
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.miniMLP.ml;
+
+// 16-bit encodings for stored weights; all arithmetic on them is done in fp32.
+public enum HalfFormat {
+    // IEEE 754 binary16: 10-bit mantissa, range up to 65504.
+    FP16 {
+        @Override
+        public float toFloat(short h) {
+            return Float.float16ToFloat(h);
+        }
+
+        @Override
+        public short fromFloat(float f) {
+            return Float.floatToFloat16(f);
+        }
+    },
+    // bfloat16: the upper half of an fp32, same range with a 7-bit mantissa.
+    BF16 {
+        @Override
+        public float toFloat(short h) {
+            return Float.intBitsToFloat(h << 16);
+        }
+
+        @Override
+        public short fromFloat(float f) {
+            int bits = Float.floatToRawIntBits(f);
+            if (Float.isNaN(f)) {
+                return (short) ((bits >>> 16) | 0x40);
+            }
+            // Round to nearest, ties to even.
+            return (short) ((bits + 0x7FFF + ((bits >>> 16) & 1)) >>> 16);
+        }
+    };
+
+    public abstract float toFloat(short h);
+
+    public abstract short fromFloat(float f);
+}
@@ -0,0 +1,213 @@
+package com.example.miniMLP.ml;
+
+import com.example.miniMLP.metrics.Metrics;
+
+import java.nio.FloatBuffer;
+import java.nio.ShortBuffer;
+
+// Inference-only MLP with fp16 or bf16 weights. Weights are widened inside the kernels and all
+// accumulation is fp32, so predict reads half the bytes of the fp32 model with the same layouts:
+// w1 input-major (w1[i * hiddenSize + j]), w2 output-major (w2[k * hiddenSize + j]).
+public final class HalfMLP implements Predictor {
+    private final int inputSize, hiddenSize, outputSize;
+    private final HalfFormat format;
+    private final short[] w1;
+    private final float[] b1;
+    private final short[] w2;
+    private final float[] b2;
+    private final ThreadLocal<Workspace> workspaces;
+
+    private HalfMLP(int inputSize, int hiddenSize, int outputSize, HalfFormat format) {
+        this.inputSize = inputSize;
+        this.hiddenSize = hiddenSize;
+        this.outputSize = outputSize;
+        this.format = format;
+        this.w1 = new short[inputSize * hiddenSize];
+        this.b1 = new float[hiddenSize];
+        this.w2 = new short[outputSize * hiddenSize];
+        this.b2 = new float[outputSize];
+        this.workspaces = ThreadLocal.withInitial(() -> new Workspace(hiddenSize, outputSize));
+    }
+
+    public static HalfMLP zeros(int inputSize, int hiddenSize, int outputSize, HalfFormat format) {
+        return new HalfMLP(inputSize, hiddenSize, outputSize, format);
+    }
+
+    public static HalfMLP convert(MLP mlp, HalfFormat format) {
+        HalfMLP h = new HalfMLP(mlp.getInputSize(), mlp.getHiddenSize(), mlp.getOutputSize(), format);
+        FloatBuffer params = FloatBuffer.allocate(mlp.parameterCount());
+        mlp.writeParameters(params);
+        params.flip();
+        ShortBuffer halves = ShortBuffer.allocate(params.remaining());
+        while (params.hasRemaining()) {
+            halves.put(format.fromFloat(params.get()));
+        }
+        halves.flip();
+        h.readParameters(halves);
+        return h;
+    }
+
+    // Widens back to a trainable fp32 model.
+    public MLP toMLP() {
+        ShortBuffer halves = ShortBuffer.allocate(parameterCount());
+        writeParameters(halves);
+        halves.flip();
+        FloatBuffer params = FloatBuffer.allocate(halves.remaining());
+        while (halves.hasRemaining()) {
+            params.put(format.toFloat(halves.get()));
+        }
+        params.flip();
+        MLP mlp = MLP.zeros(inputSize, hiddenSize, outputSize);
+        mlp.readParameters(params);
+        return mlp;
+    }
+
+    public HalfFormat getFormat() {
+        return format;
+    }
+
+    @Override
+    public int getInputSize() {
+        return inputSize;
+    }
+
+    public int getHiddenSize() {
+        return hiddenSize;
+    }
+
+    @Override
+    public int getOutputSize() {
+        return outputSize;
+    }
+
+    public int parameterCount() {
+        return inputSize * hiddenSize + hiddenSize + hiddenSize * outputSize + outputSize;
+    }
+
+    // Same file order as MLP.writeParameters: w1 [input][hidden], b1, w2 [hidden][output], b2.
+    public void writeParameters(ShortBuffer out) {
+        out.put(w1);
+        for (float b : b1) {
+            out.put(format.fromFloat(b));
+        }
+        for (int j = 0; j < hiddenSize; j++) {
+            for (int k = 0; k < outputSize; k++) {
+                out.put(w2[k * hiddenSize + j]);
+            }
+        }
+        for (float b : b2) {
+            out.put(format.fromFloat(b));
+        }
+    }
+
+    public void readParameters(ShortBuffer in) {
+        in.get(w1);
+        for (int j = 0; j < hiddenSize; j++) {
+            b1[j] = format.toFloat(in.get());
+        }
+        for (int j = 0; j < hiddenSize; j++) {
+            for (int k = 0; k < outputSize; k++) {
+                w2[k * hiddenSize + j] = in.get();
+            }
+        }
+        for (int k = 0; k < outputSize; k++) {
+            b2[k] = format.toFloat(in.get());
+        }
+    }
+
+    @Override
+    public PredictionResult predict(float[] input) {
+        float[] output = new float[outputSize];
+        int bestIndex = predictInto(input, output);
+        return new PredictionResult(bestIndex, output[bestIndex], false, output);
+    }
+
+    @Override
+    public PredictionResult predict(SparseInput input) {
+        long started = System.nanoTime();
+        float[] output = new float[outputSize];
+        Workspace ws = workspaces.get();
+        KernelBackend kb = Kernels.current();
+        System.arraycopy(b1, 0, ws.hidden, 0, hiddenSize);
+        int[] active = input.indices();
+        for (int n = 0, count = input.count(); n < count; n++) {
+            kb.axpy(1f, w1, active[n] * hiddenSize, format, ws.hidden, 0, hiddenSize);
+        }
+        forwardOutput(ws, kb);
+        int bestIndex = argmaxInto(ws.output, output);
+        Metrics.predict(System.nanoTime() - started);
+        return new PredictionResult(bestIndex, output[bestIndex], false, output);
+    }
+
+    @Override
+    public int predictInto(float[] input, float[] probsOut) {
+        long started = System.nanoTime();
+        Workspace ws = workspaces.get();
+        KernelBackend kb = Kernels.current();
+        System.arraycopy(b1, 0, ws.hidden, 0, hiddenSize);
+        for (int i = 0; i < inputSize; i++) {
+            if (input[i] != 0f) {
+                kb.axpy(input[i], w1, i * hiddenSize, format, ws.hidden, 0, hiddenSize);
+            }
+        }
+        forwardOutput(ws, kb);
+        int best = argmaxInto(ws.output, probsOut);
+        Metrics.predict(System.nanoTime() - started);
+        return best;
+    }
+
+    @Override
+    public float evaluate(PackedDataset data) {
+        if (data.size() == 0) {
+            return 0f;
+        }
+        Workspace ws = workspaces.get();
+        KernelBackend kb = Kernels.current();
+        long[] bits = data.bits();
+        int words = data.words();
+        int correct = 0;
+        for (int i = 0; i < data.size(); i++) {
+            System.arraycopy(b1, 0, ws.hidden, 0, hiddenSize);
+            int off = data.offset(i);
+            for (int w = 0; w < words; w++) {
+                long word = bits[off + w];
+                while (word != 0) {
+                    kb.axpy(1f, w1, ((w << 6) + Long.numberOfTrailingZeros(word)) * hiddenSize, format, ws.hidden, 0, hiddenSize);
+                    word &= word - 1;
+                }
+            }
+            forwardOutput(ws, kb);
+            if (argmax(ws.output) == data.label(i)) {
+                correct++;
+            }
+        }
+        return (float) correct / data.size();
+    }
+
+    private void forwardOutput(Workspace ws, KernelBackend kb) {
+        float[] hidden = ws.hidden;
+        for (int j = 0; j < hiddenSize; j++) {
+            hidden[j] = Math.max(0f, hidden[j]);
+        }
+        float[] output = ws.output;
+        for (int k = 0; k < outputSize; k++) {
+            output[k] = b2[k] + kb.dot(hidden, 0, w2, k * hiddenSize, format, hiddenSize);
+        }
+        kb.softmax(output, 0, outputSize);
+    }
+
+    private int argmax(float[] output) {
+        int best = 0;
+        for (int k = 1; k < outputSize; k++) {
+            if (output[k] > output[best]) {
+                best = k;
+            }
+        }
+        return best;
+    }
+
+    private int argmaxInto(float[] output, float[] probsOut) {
+        System.arraycopy(output, 0, probsOut, 0, outputSize);
+        return argmax(output);
+    }
+}
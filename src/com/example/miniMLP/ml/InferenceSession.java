@@ -0,0 +1,33 @@
+package com.example.miniMLP.ml;
+
+// Thread-confined predictor: after construction predict() allocates nothing, the returned
+// result and its probabilities array are reused and overwritten by the next call.
+public final class InferenceSession {
+    private final MLP mlp;
+    private final Workspace ws;
+    private final float[] probabilities;
+    private final PredictionResult result;
+
+    InferenceSession(MLP mlp) {
+        this.mlp = mlp;
+        this.ws = mlp.newWorkspace();
+        this.probabilities = new float[mlp.getOutputSize()];
+        this.result = new PredictionResult(0, 0f, false, probabilities);
+    }
+
+    public PredictionResult predict(float[] input) {
+        int best = mlp.predictInto(input, probabilities, ws);
+        result.predictedIndex = best;
+        result.confidence = probabilities[best];
+        result.isUncertain = false;
+        return result;
+    }
+
+    public PredictionResult predict(SparseInput input) {
+        int best = mlp.predictInto(input, probabilities, ws);
+        result.predictedIndex = best;
+        result.confidence = probabilities[best];
+        result.isUncertain = false;
+        return result;
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.miniMLP.ml;
+
+public interface KernelBackend {
+    String name();
+
+    float dot(float[] a, int aOff, float[] b, int bOff, int len);
+
+    // y[yOff..] += alpha * x[xOff..]
+    void axpy(float alpha, float[] x, int xOff, float[] y, int yOff, int len);
+
+    // Integer axpy for int8 weights: y[yOff..] += alpha * x[xOff..], accumulated in int.
+    void axpy(int alpha, byte[] x, int xOff, int[] y, int yOff, int len);
+
+    // Same as dot/axpy with b (resp. x) stored as 16-bit values, widened to fp32 on the fly.
+    float dot(float[] a, int aOff, short[] b, int bOff, HalfFormat format, int len);
+
+    void axpy(float alpha, short[] x, int xOff, HalfFormat format, float[] y, int yOff, int len);
+
+    // In-place, numerically stable softmax of v[off..off+len).
+    void softmax(float[] v, int off, int len);
+}
@@ -0,0 +1,54 @@
+package com.example.miniMLP.ml;
+
+import com.example.miniMLP.metrics.Metrics;
+
+// Runtime selection of the dense-layer backend. The initial choice comes from the system property
+// miniMLP.kernels (auto, scalar or vector); "vector" needs --add-modules jdk.incubator.vector.
+public final class Kernels {
+    private static final KernelBackend SCALAR = new ScalarBackend();
+    private static final KernelBackend VECTOR = loadVectorBackend();
+    private static volatile KernelBackend current = select(System.getProperty("miniMLP.kernels", "auto"));
+
+    private Kernels() {
+    }
+
+    public static KernelBackend current() {
+        return current;
+    }
+
+    public static boolean isVectorAvailable() {
+        return VECTOR != null;
+    }
+
+    public static KernelBackend use(String name) {
+        current = select(name);
+        return current;
+    }
+
+    private static KernelBackend select(String name) {
+        switch (name.trim().toLowerCase()) {
+            case "scalar":
+                return SCALAR;
+            case "vector":
+                if (VECTOR == null) {
+                    Metrics.warning("Moduł jdk.incubator.vector niedostępny, używam jąder skalarnych.");
+                    return SCALAR;
+                }
+                return VECTOR;
+            default:
+                return VECTOR != null ? VECTOR : SCALAR;
+        }
+    }
+
+    private static KernelBackend loadVectorBackend() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return null;
+        }
+        try {
+            return (KernelBackend) Class.forName("com.example.miniMLP.ml.VectorBackend")
+                    .getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.miniMLP.ml;
+
+// Learning rate for a given epoch, derived from the optimizer's base rate.
+public interface LearningRateSchedule {
+    float rate(int epoch, float baseLr);
+
+    static LearningRateSchedule constant() {
+        return (epoch, baseLr) -> baseLr;
+    }
+
+    // Multiplies the rate by gamma every stepSize epochs.
+    static LearningRateSchedule step(int stepSize, float gamma) {
+        return (epoch, baseLr) -> baseLr * (float) Math.pow(gamma, epoch / Math.max(1, stepSize));
+    }
+
+    // Half cosine from baseLr down to minLr over totalEpochs, then stays at minLr.
+    static LearningRateSchedule cosine(int totalEpochs, float minLr) {
+        return (epoch, baseLr) -> {
+            float progress = Math.min(1f, (float) epoch / Math.max(1, totalEpochs));
+            return minLr + (baseLr - minLr) * 0.5f * (1f + (float) Math.cos(Math.PI * progress));
+        };
+    }
+}
@@ -1,16 +1,41 @@
 package com.example.miniMLP.ml;
 
+import com.example.miniMLP.metrics.Metrics;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
+import java.nio.FloatBuffer;
+import java.util.Arrays;
 import java.util.Random;
+import java.util.stream.IntStream;
 
-public class MLP implements Serializable {
+public class MLP implements Serializable, Predictor {
     private static final long serialVersionUID = 1L;
+    private static final int PREDICT_BLOCK = 64;
+    private static final int PARALLEL_PREDICT_THRESHOLD = 1024;
+    // Field layout of the original float[][] version, kept so old serialized models still load.
+    private static final ObjectStreamField[] serialPersistentFields = {
+            new ObjectStreamField("inputSize", int.class),
+            new ObjectStreamField("hiddenSize", int.class),
+            new ObjectStreamField("outputSize", int.class),
+            new ObjectStreamField("w1", float[][].class),
+            new ObjectStreamField("b1", float[].class),
+            new ObjectStreamField("w2", float[][].class),
+            new ObjectStreamField("b2", float[].class)
+    };
     private int inputSize, hiddenSize, outputSize;
-    private float[][] w1;
+    // Flat parameter buffers. w1 is input-major (w1[i * hiddenSize + j]): the forward pass adds whole
+    // rows of active inputs and the update touches the same rows. w2 is output-major
+    // (w2[k * hiddenSize + j]): logits are dot products and the backward pass axpys the same rows.
+    private float[] w1;
     private float[] b1;
-    private float[][] w2;
+    private float[] w2;
     private float[] b2;
     private transient Random rnd = new Random();
+    private transient volatile ThreadLocal<Workspace> workspaces;
     private float relu(float x) {
         return x > 0 ? x : 0;
     }
@@ -19,26 +44,40 @@ public class MLP implements Serializable {
     }
 
     public MLP(int inputSize, int hiddenSize, int outputSize) {
+        this(inputSize, hiddenSize, outputSize, true);
+    }
+
+    // Reproducible initialization and per-sample shuffling.
+    public MLP(int inputSize, int hiddenSize, int outputSize, long seed) {
+        this(inputSize, hiddenSize, outputSize, false);
+        rnd = new Random(seed);
+        initialize();
+    }
+
+    private MLP(int inputSize, int hiddenSize, int outputSize, boolean randomInit) {
         this.inputSize = inputSize;
         this.hiddenSize = hiddenSize;
         this.outputSize = outputSize;
 
-        w1 = new float[inputSize][hiddenSize];
+        w1 = new float[inputSize * hiddenSize];
         b1 = new float[hiddenSize];
-        w2 = new float[hiddenSize][outputSize];
+        w2 = new float[outputSize * hiddenSize];
         b2 = new float[outputSize];
+        if (randomInit) {
+            initialize();
+        }
+    }
 
-        for (int i = 0; i < inputSize; i++) {
-            for (int j = 0; j < hiddenSize; j++) {
-                w1[i][j] = rnd.nextFloat() * 2 - 1;
-            }
+    private void initialize() {
+        for (int i = 0; i < inputSize * hiddenSize; i++) {
+            w1[i] = rnd.nextFloat() * 2 - 1;
         }
         for (int j = 0; j < hiddenSize; j++) {
             b1[j] = rnd.nextFloat() * 2 - 1;
         }
         for (int j = 0; j < hiddenSize; j++) {
             for (int k = 0; k < outputSize; k++) {
-                w2[j][k] = rnd.nextFloat() * 2 - 1;
+                w2[k * hiddenSize + j] = rnd.nextFloat() * 2 - 1;
             }
         }
         for (int k = 0; k < outputSize; k++) {
@@ -46,122 +85,520 @@ public class MLP implements Serializable {
         }
     }
 
+    // All-zero network of the given shape, meant to be filled by readParameters.
+    public static MLP zeros(int inputSize, int hiddenSize, int outputSize) {
+        return new MLP(inputSize, hiddenSize, outputSize, false);
+    }
+
+    // Independent copy of the weights, e.g. to fine-tune while the original keeps serving predictions.
+    public MLP copy() {
+        MLP copy = zeros(inputSize, hiddenSize, outputSize);
+        System.arraycopy(w1, 0, copy.w1, 0, w1.length);
+        System.arraycopy(b1, 0, copy.b1, 0, b1.length);
+        System.arraycopy(w2, 0, copy.w2, 0, w2.length);
+        System.arraycopy(b2, 0, copy.b2, 0, b2.length);
+        return copy;
+    }
+
+    @Override
+    public int getInputSize() {
+        return inputSize;
+    }
+
+    public int getHiddenSize() {
+        return hiddenSize;
+    }
+
+    @Override
+    public int getOutputSize() {
+        return outputSize;
+    }
+
+    public int parameterCount() {
+        return inputSize * hiddenSize + hiddenSize + hiddenSize * outputSize + outputSize;
+    }
+
+    public float getW1(int input, int hidden) {
+        return w1[input * hiddenSize + hidden];
+    }
+
+    public float getB1(int hidden) {
+        return b1[hidden];
+    }
+
+    public float getW2(int hidden, int output) {
+        return w2[output * hiddenSize + hidden];
+    }
+
+    public float getB2(int output) {
+        return b2[output];
+    }
+
+    // Parameters in file order: w1 [input][hidden], b1, w2 [hidden][output], b2.
+    public void writeParameters(FloatBuffer out) {
+        out.put(w1);
+        out.put(b1);
+        for (int j = 0; j < hiddenSize; j++) {
+            for (int k = 0; k < outputSize; k++) {
+                out.put(w2[k * hiddenSize + j]);
+            }
+        }
+        out.put(b2);
+    }
+
+    public void readParameters(FloatBuffer in) {
+        in.get(w1);
+        in.get(b1);
+        for (int j = 0; j < hiddenSize; j++) {
+            for (int k = 0; k < outputSize; k++) {
+                w2[k * hiddenSize + j] = in.get();
+            }
+        }
+        in.get(b2);
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        float[][] w1Rows = new float[inputSize][];
+        for (int i = 0; i < inputSize; i++) {
+            w1Rows[i] = Arrays.copyOfRange(w1, i * hiddenSize, (i + 1) * hiddenSize);
+        }
+        float[][] w2Rows = new float[hiddenSize][outputSize];
+        for (int j = 0; j < hiddenSize; j++) {
+            for (int k = 0; k < outputSize; k++) {
+                w2Rows[j][k] = w2[k * hiddenSize + j];
+            }
+        }
+        ObjectOutputStream.PutField fields = out.putFields();
+        fields.put("inputSize", inputSize);
+        fields.put("hiddenSize", hiddenSize);
+        fields.put("outputSize", outputSize);
+        fields.put("w1", w1Rows);
+        fields.put("b1", b1);
+        fields.put("w2", w2Rows);
+        fields.put("b2", b2);
+        out.writeFields();
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        inputSize = fields.get("inputSize", 0);
+        hiddenSize = fields.get("hiddenSize", 0);
+        outputSize = fields.get("outputSize", 0);
+        float[][] w1Rows = (float[][]) fields.get("w1", null);
+        float[][] w2Rows = (float[][]) fields.get("w2", null);
+        b1 = (float[]) fields.get("b1", null);
+        b2 = (float[]) fields.get("b2", null);
+        w1 = new float[inputSize * hiddenSize];
+        for (int i = 0; i < inputSize; i++) {
+            System.arraycopy(w1Rows[i], 0, w1, i * hiddenSize, hiddenSize);
+        }
+        w2 = new float[outputSize * hiddenSize];
+        for (int j = 0; j < hiddenSize; j++) {
+            for (int k = 0; k < outputSize; k++) {
+                w2[k * hiddenSize + j] = w2Rows[j][k];
+            }
+        }
+    }
+
     public void train(float[][] inputs, float[][] targets, int epochs, float lr) {
         int n = inputs.length;
         for (int epoch = 0; epoch < epochs; epoch++) {
+            long started = System.nanoTime();
             float sumLoss = 0f;
             for (int i = 0; i < n; i++) {
                 sumLoss += trainOnExample(inputs[i], targets[i], lr);
             }
             float avgLoss = sumLoss / n;
-            System.out.println("Epoch " + epoch + " - Loss: " + avgLoss);
+            Metrics.epoch(epoch, avgLoss, n, System.nanoTime() - started);
         }
     }
 
-    private float trainOnExample(float[] input, float[] target, float lr) {
-        float[] hidden = new float[hiddenSize];
-        for (int j = 0; j < hiddenSize; j++) {
-            float sum = b1[j];
-            for (int i = 0; i < inputSize; i++) {
-                sum += input[i] * w1[i][j];
+    public void train(SparseInput[] inputs, float[][] targets, int epochs, float lr) {
+        int n = inputs.length;
+        Workspace ws = workspace();
+        for (int epoch = 0; epoch < epochs; epoch++) {
+            long started = System.nanoTime();
+            float sumLoss = 0f;
+            for (int i = 0; i < n; i++) {
+                sumLoss += trainOnExample(inputs[i], targets[i], lr, ws);
             }
-            hidden[j] = relu(sum);
+            float avgLoss = sumLoss / n;
+            Metrics.epoch(epoch, avgLoss, n, System.nanoTime() - started);
         }
+    }
 
-        float[] outputRaw = new float[outputSize];
-        float maxLogit = Float.NEGATIVE_INFINITY;
+    public void train(PackedDataset data, int epochs, float lr) {
+        int n = data.size();
+        float[][] oneHot = new float[outputSize][outputSize];
         for (int k = 0; k < outputSize; k++) {
-            float sum = b2[k];
-            for (int j = 0; j < hiddenSize; j++) {
-                sum += hidden[j] * w2[j][k];
+            oneHot[k][k] = 1f;
+        }
+        Workspace ws = workspace();
+        long[] bits = data.bits();
+        for (int epoch = 0; epoch < epochs; epoch++) {
+            long started = System.nanoTime();
+            float sumLoss = 0f;
+            for (int i = 0; i < n; i++) {
+                sumLoss += trainOnPacked(bits, data.offset(i), data.words(), oneHot[data.label(i)], lr, ws);
             }
-            outputRaw[k] = sum;
-            if (sum > maxLogit) {
-                maxLogit = sum;
+            float avgLoss = sumLoss / n;
+            Metrics.epoch(epoch, avgLoss, n, System.nanoTime() - started);
+        }
+    }
+
+    @Override
+    public float evaluate(PackedDataset data) {
+        if (data.size() == 0) {
+            return 0f;
+        }
+        Workspace ws = workspace();
+        KernelBackend kb = Kernels.current();
+        long[] bits = data.bits();
+        int correct = 0;
+        for (int i = 0; i < data.size(); i++) {
+            forward(bits, data.offset(i), data.words(), ws, kb);
+            float[] output = ws.output;
+            int best = 0;
+            for (int k = 1; k < outputSize; k++) {
+                if (output[k] > output[best]) {
+                    best = k;
+                }
+            }
+            if (best == data.label(i)) {
+                correct++;
             }
         }
+        return (float) correct / data.size();
+    }
 
-        float[] output = new float[outputSize];
-        float sumExp = 0f;
-        for (int k = 0; k < outputSize; k++) {
-            output[k] = (float) Math.exp(outputRaw[k] - maxLogit);
-            sumExp += output[k];
+    // Mean cross-entropy over the dataset, same loss as reported during training.
+    float crossEntropy(PackedDataset data) {
+        if (data.size() == 0) {
+            return 0f;
         }
-        for (int k = 0; k < outputSize; k++) {
-            output[k] /= sumExp;
+        Workspace ws = workspace();
+        KernelBackend kb = Kernels.current();
+        long[] bits = data.bits();
+        double sum = 0;
+        for (int i = 0; i < data.size(); i++) {
+            forward(bits, data.offset(i), data.words(), ws, kb);
+            sum -= Math.log(ws.output[data.label(i)] + 1e-7f);
         }
+        return (float) (sum / data.size());
+    }
 
-        float loss = 0f;
-        for (int k = 0; k < outputSize; k++) {
-            loss -= target[k] * Math.log(output[k] + 1e-7f);
+    public void train(float[][] inputs, float[][] targets, int epochs, float lr, int batchSize) {
+        train(inputs, targets, epochs, batchSize, new SgdOptimizer(lr));
+    }
+
+    public void train(PackedDataset data, int epochs, float lr, int batchSize) {
+        train(data, epochs, batchSize, new SgdOptimizer(lr));
+    }
+
+    public void train(float[][] inputs, float[][] targets, int epochs, int batchSize, Optimizer optimizer) {
+        trainBatches(inputs.length, epochs, batchSize, optimizer,
+                (ws, order, start, count) -> ws.load(inputs, targets, order, start, count));
+    }
+
+    public void train(PackedDataset data, int epochs, int batchSize, Optimizer optimizer) {
+        trainBatches(data.size(), epochs, batchSize, optimizer,
+                (ws, order, start, count) -> ws.load(data, order, start, count));
+    }
+
+    private void trainBatches(int n, int epochs, int batchSize, Optimizer optimizer, BatchWorkspace.Loader loader) {
+        requirePositiveBatch(batchSize);
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        BatchWorkspace ws = new BatchWorkspace(Math.min(batchSize, n), inputSize, hiddenSize, outputSize);
+        Gradients grads = new Gradients(inputSize, hiddenSize, outputSize);
+        for (int epoch = 0; epoch < epochs; epoch++) {
+            long started = System.nanoTime();
+            shuffle(order);
+            float sumLoss = trainPass(order, n, optimizer, ws, grads, loader);
+            float avgLoss = sumLoss / n;
+            Metrics.epoch(epoch, avgLoss, n, System.nanoTime() - started);
         }
+    }
 
-        float[] dOutput = new float[outputSize];
-        for (int k = 0; k < outputSize; k++) {
-            dOutput[k] = output[k] - target[k];
+    // A zero-capacity workspace would never advance through the data.
+    static int requirePositiveBatch(int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Rozmiar partii musi być dodatni: " + batchSize);
         }
+        return batchSize;
+    }
 
-        float[] dHidden = new float[hiddenSize];
-        for (int j = 0; j < hiddenSize; j++) {
+    // One mini-batch pass over order[0..n); returns the summed loss.
+    float trainPass(int[] order, int n, Optimizer optimizer, BatchWorkspace ws, Gradients grads, BatchWorkspace.Loader loader) {
+        float sumLoss = 0f;
+        if (n > 0) {
+            requirePositiveBatch(ws.capacity);
+        }
+        for (int start = 0; start < n; start += ws.capacity) {
+            int count = Math.min(ws.capacity, n - start);
+            loader.load(ws, order, start, count);
+            grads.clear();
+            sumLoss += accumulateBatch(ws, count, grads);
+            applyGradients(grads, 1f / count, optimizer);
+        }
+        return sumLoss;
+    }
+
+    float accumulateBatch(BatchWorkspace ws, int count, Gradients g) {
+        DenseKernels.matMul(ws.x, 0, count, inputSize, w1, b1, ws.hidden, hiddenSize);
+        DenseKernels.relu(ws.hidden, count * hiddenSize);
+        DenseKernels.matMulTransposed(ws.hidden, count, hiddenSize, w2, b2, ws.output, outputSize);
+        DenseKernels.softmaxRows(ws.output, count, outputSize);
+
+        float loss = 0f;
+        for (int b = 0; b < count; b++) {
+            int off = b * outputSize;
             for (int k = 0; k < outputSize; k++) {
-                dHidden[j] += dOutput[k] * w2[j][k];
+                loss -= ws.t[off + k] * Math.log(ws.output[off + k] + 1e-7f);
+                ws.dOutput[off + k] = ws.output[off + k] - ws.t[off + k];
+                g.b2[k] += ws.dOutput[off + k];
             }
         }
+        DenseKernels.accumulateOuter(ws.dOutput, count, outputSize, ws.hidden, hiddenSize, g.w2);
 
-        for (int j = 0; j < hiddenSize; j++) {
-            for (int k = 0; k < outputSize; k++) {
-                w2[j][k] -= lr * dOutput[k] * hidden[j];
+        DenseKernels.matMul(ws.dOutput, 0, count, outputSize, w2, null, ws.dHidden, hiddenSize);
+        for (int b = 0; b < count; b++) {
+            int off = b * hiddenSize;
+            for (int j = 0; j < hiddenSize; j++) {
+                float d = ws.hidden[off + j] > 0 ? ws.dHidden[off + j] : 0f;
+                ws.dHidden[off + j] = d;
+                g.b1[j] += d;
             }
         }
-        
-        for (int k = 0; k < outputSize; k++) {
-            b2[k] -= lr * dOutput[k];
+        DenseKernels.accumulateOuter(ws.x, count, inputSize, ws.dHidden, hiddenSize, g.w1);
+        return loss;
+    }
+
+    void applyGradients(Gradients g, float scale) {
+        KernelBackend kb = Kernels.current();
+        kb.axpy(-scale, g.w1, 0, w1, 0, w1.length);
+        kb.axpy(-scale, g.b1, 0, b1, 0, hiddenSize);
+        kb.axpy(-scale, g.w2, 0, w2, 0, w2.length);
+        kb.axpy(-scale, g.b2, 0, b2, 0, outputSize);
+    }
+
+    // Parameter tensors are always visited in the same order, so slot i is the same buffer on every step.
+    void applyGradients(Gradients g, float scale, Optimizer optimizer) {
+        optimizer.beginStep();
+        optimizer.update(0, w1, g.w1, scale);
+        optimizer.update(1, b1, g.b1, scale);
+        optimizer.update(2, w2, g.w2, scale);
+        optimizer.update(3, b2, g.b2, scale);
+    }
+
+    void shuffle(int[] order) {
+        shuffle(order, order.length);
+    }
+
+    void shuffle(int[] order, int n) {
+        if (rnd == null) {
+            rnd = new Random();
         }
+        shuffle(order, n, rnd);
+    }
 
+    static void shuffle(int[] order, Random rnd) {
+        shuffle(order, order.length, rnd);
+    }
+
+    // Fisher-Yates over the first n entries.
+    static void shuffle(int[] order, int n, Random rnd) {
+        for (int i = n - 1; i > 0; i--) {
+            int j = rnd.nextInt(i + 1);
+            int tmp = order[i];
+            order[i] = order[j];
+            order[j] = tmp;
+        }
+    }
+
+    public float trainOnExample(float[] input, float[] target, float lr) {
+        return trainOnExample(input, target, lr, workspace());
+    }
+
+    float trainOnExample(float[] input, float[] target, float lr, Workspace ws) {
+        KernelBackend kb = Kernels.current();
+        forward(input, ws, kb);
+        float loss = backwardOutput(target, lr, ws, kb);
+        float[] dHidden = ws.dHidden;
         for (int i = 0; i < inputSize; i++) {
-            for (int j = 0; j < hiddenSize; j++) {
-                w1[i][j] -= lr * dHidden[j] * reluDerivative(hidden[j]) * input[i];
+            if (input[i] != 0f) {
+                kb.axpy(-lr * input[i], dHidden, 0, w1, i * hiddenSize, hiddenSize);
             }
         }
-        
-        for (int j = 0; j < hiddenSize; j++) {
-            b1[j] -= lr * dHidden[j] * reluDerivative(hidden[j]);
+        kb.axpy(-lr, dHidden, 0, b1, 0, hiddenSize);
+        return loss;
+    }
+
+    // Only the w1 rows of active inputs receive a gradient, so only those rows are touched.
+    float trainOnExample(SparseInput input, float[] target, float lr, Workspace ws) {
+        KernelBackend kb = Kernels.current();
+        forward(input, ws, kb);
+        float loss = backwardOutput(target, lr, ws, kb);
+        float[] dHidden = ws.dHidden;
+        int[] active = input.indices();
+        for (int n = 0, count = input.count(); n < count; n++) {
+            kb.axpy(-lr, dHidden, 0, w1, active[n] * hiddenSize, hiddenSize);
         }
+        kb.axpy(-lr, dHidden, 0, b1, 0, hiddenSize);
         return loss;
     }
 
-    public PredictionResult predict(float[] input) {
-        float[] hidden = new float[hiddenSize];
-        for (int j = 0; j < hiddenSize; j++) {
-            float sum = b1[j];
-            for (int i = 0; i < inputSize; i++) {
-                sum += input[i] * w1[i][j];
+    float trainOnPacked(long[] bits, int off, int words, float[] target, float lr, Workspace ws) {
+        KernelBackend kb = Kernels.current();
+        forward(bits, off, words, ws, kb);
+        float loss = backwardOutput(target, lr, ws, kb);
+        float[] dHidden = ws.dHidden;
+        for (int w = 0; w < words; w++) {
+            long word = bits[off + w];
+            while (word != 0) {
+                kb.axpy(-lr, dHidden, 0, w1, ((w << 6) + Long.numberOfTrailingZeros(word)) * hiddenSize, hiddenSize);
+                word &= word - 1;
             }
-            hidden[j] = relu(sum);
         }
+        kb.axpy(-lr, dHidden, 0, b1, 0, hiddenSize);
+        return loss;
+    }
+
+    // Updates w2/b2 and leaves the hidden-layer delta in ws.dHidden; returns the example loss.
+    private float backwardOutput(float[] target, float lr, Workspace ws, KernelBackend kb) {
+        float[] hidden = ws.hidden;
+        float[] output = ws.output;
 
-        float[] outputRaw = new float[outputSize];
-        float maxLogit = Float.NEGATIVE_INFINITY;
+        float loss = 0f;
         for (int k = 0; k < outputSize; k++) {
-            float sum = b2[k];
-            for (int j = 0; j < hiddenSize; j++) {
-                sum += hidden[j] * w2[j][k];
+            loss -= target[k] * Math.log(output[k] + 1e-7f);
+        }
+
+        float[] dOutput = ws.dOutput;
+        for (int k = 0; k < outputSize; k++) {
+            dOutput[k] = output[k] - target[k];
+        }
+
+        float[] dHidden = ws.dHidden;
+        Arrays.fill(dHidden, 0f);
+        for (int k = 0; k < outputSize; k++) {
+            kb.axpy(dOutput[k], w2, k * hiddenSize, dHidden, 0, hiddenSize);
+        }
+        for (int j = 0; j < hiddenSize; j++) {
+            dHidden[j] *= reluDerivative(hidden[j]);
+        }
+
+        for (int k = 0; k < outputSize; k++) {
+            kb.axpy(-lr * dOutput[k], hidden, 0, w2, k * hiddenSize, hiddenSize);
+        }
+        kb.axpy(-lr, dOutput, 0, b2, 0, outputSize);
+        return loss;
+    }
+
+    void forward(float[] input, Workspace ws) {
+        forward(input, ws, Kernels.current());
+    }
+
+    // The first layer accumulates whole w1 rows (axpy) so the inner loop walks contiguous memory.
+    private void forward(float[] input, Workspace ws, KernelBackend kb) {
+        float[] hidden = ws.hidden;
+        System.arraycopy(b1, 0, hidden, 0, hiddenSize);
+        for (int i = 0; i < inputSize; i++) {
+            if (input[i] != 0f) {
+                kb.axpy(input[i], w1, i * hiddenSize, hidden, 0, hiddenSize);
             }
-            outputRaw[k] = sum;
-            if (sum > maxLogit) {
-                maxLogit = sum;
+        }
+        forwardOutput(ws, kb);
+    }
+
+    // Hidden pre-activation of a binary input is just the sum of the active rows of w1.
+    private void forward(SparseInput input, Workspace ws, KernelBackend kb) {
+        float[] hidden = ws.hidden;
+        System.arraycopy(b1, 0, hidden, 0, hiddenSize);
+        int[] active = input.indices();
+        for (int n = 0, count = input.count(); n < count; n++) {
+            kb.axpy(1f, w1, active[n] * hiddenSize, hidden, 0, hiddenSize);
+        }
+        forwardOutput(ws, kb);
+    }
+
+    // Same as the sparse path, but the active rows come straight from the set bits of the packed words.
+    private void forward(long[] bits, int off, int words, Workspace ws, KernelBackend kb) {
+        float[] hidden = ws.hidden;
+        System.arraycopy(b1, 0, hidden, 0, hiddenSize);
+        for (int w = 0; w < words; w++) {
+            long word = bits[off + w];
+            while (word != 0) {
+                kb.axpy(1f, w1, ((w << 6) + Long.numberOfTrailingZeros(word)) * hiddenSize, hidden, 0, hiddenSize);
+                word &= word - 1;
             }
         }
+        forwardOutput(ws, kb);
+    }
 
-        float[] output = new float[outputSize];
-        float sumExp = 0f;
-        for (int k = 0; k < outputSize; k++) {
-            output[k] = (float) Math.exp(outputRaw[k] - maxLogit);
-            sumExp += output[k];
+    private void forwardOutput(Workspace ws, KernelBackend kb) {
+        float[] hidden = ws.hidden;
+        for (int j = 0; j < hiddenSize; j++) {
+            hidden[j] = relu(hidden[j]);
         }
+
+        float[] output = ws.output;
         for (int k = 0; k < outputSize; k++) {
-            output[k] /= sumExp;
+            output[k] = b2[k] + kb.dot(hidden, 0, w2, k * hiddenSize, hiddenSize);
         }
+        kb.softmax(output, 0, outputSize);
+    }
+
+    @Override
+    public PredictionResult predict(float[] input) {
+        float[] output = new float[outputSize];
+        int bestIndex = predictInto(input, output);
+        return new PredictionResult(bestIndex, output[bestIndex], false, output);
+    }
+
+    @Override
+    public int predictInto(float[] input, float[] probsOut) {
+        return predictInto(input, probsOut, workspace());
+    }
+
+    @Override
+    public PredictionResult predict(SparseInput input) {
+        float[] output = new float[outputSize];
+        int bestIndex = predictInto(input, output);
+        return new PredictionResult(bestIndex, output[bestIndex], false, output);
+    }
+
+    public int predictInto(SparseInput input, float[] probsOut) {
+        return predictInto(input, probsOut, workspace());
+    }
+
+    // Scores one sample straight from its packed bits, without unpacking it.
+    int predictInto(PackedDataset data, int sample, float[] probsOut, Workspace ws) {
+        forward(data.bits(), data.offset(sample), data.words(), ws, Kernels.current());
+        return argmaxInto(ws.output, probsOut);
+    }
+
+    // Every single-sample prediction ends up here, so this is where its latency is recorded.
+    int predictInto(SparseInput input, float[] probsOut, Workspace ws) {
+        long started = System.nanoTime();
+        forward(input, ws, Kernels.current());
+        int best = argmaxInto(ws.output, probsOut);
+        Metrics.predict(System.nanoTime() - started);
+        return best;
+    }
+
+    int predictInto(float[] input, float[] probsOut, Workspace ws) {
+        long started = System.nanoTime();
+        forward(input, ws);
+        int best = argmaxInto(ws.output, probsOut);
+        Metrics.predict(System.nanoTime() - started);
+        return best;
+    }
+
+    private int argmaxInto(float[] output, float[] probsOut) {
+        System.arraycopy(output, 0, probsOut, 0, outputSize);
         int bestIndex = 0;
         float bestVal = output[0];
         for (int k = 1; k < outputSize; k++) {
@@ -170,6 +607,78 @@ public class MLP implements Serializable {
                 bestIndex = k;
             }
         }
-        return new PredictionResult(bestIndex, bestVal, false, output);
+        return bestIndex;
+    }
+
+    public BatchPrediction predictBatch(float[][] inputs) {
+        float[] flat = new float[inputs.length * inputSize];
+        for (int b = 0; b < inputs.length; b++) {
+            System.arraycopy(inputs[b], 0, flat, b * inputSize, inputSize);
+        }
+        return predictBatch(flat, inputs.length);
+    }
+
+    // inputs holds count samples back to back, inputSize floats each.
+    public BatchPrediction predictBatch(float[] inputs, int count) {
+        BatchPrediction result = new BatchPrediction(new int[count], new float[count]);
+        int blocks = (count + PREDICT_BLOCK - 1) / PREDICT_BLOCK;
+        if (count >= PARALLEL_PREDICT_THRESHOLD) {
+            IntStream.range(0, blocks).parallel().forEach(blk -> predictBlock(inputs, blk * PREDICT_BLOCK,
+                    Math.min(PREDICT_BLOCK, count - blk * PREDICT_BLOCK), result, null));
+        } else {
+            BatchWorkspace ws = new BatchWorkspace(Math.min(PREDICT_BLOCK, count), inputSize, hiddenSize, outputSize);
+            for (int blk = 0; blk < blocks; blk++) {
+                predictBlock(inputs, blk * PREDICT_BLOCK, Math.min(PREDICT_BLOCK, count - blk * PREDICT_BLOCK), result, ws);
+            }
+        }
+        return result;
+    }
+
+    private void predictBlock(float[] inputs, int start, int count, BatchPrediction result, BatchWorkspace ws) {
+        if (ws == null) {
+            ws = new BatchWorkspace(count, 0, hiddenSize, outputSize);
+        }
+        forwardBatch(inputs, start, count, ws);
+        for (int b = 0; b < count; b++) {
+            int off = b * outputSize;
+            int best = 0;
+            for (int k = 1; k < outputSize; k++) {
+                if (ws.output[off + k] > ws.output[off + best]) {
+                    best = k;
+                }
+            }
+            result.predictedIndex[start + b] = best;
+            result.confidence[start + b] = ws.output[off + best];
+        }
+    }
+
+    // Class probabilities of count samples, starting at sample start of inputs, are left in ws.output.
+    void forwardBatch(float[] inputs, int start, int count, BatchWorkspace ws) {
+        DenseKernels.matMul(inputs, start * inputSize, count, inputSize, w1, b1, ws.hidden, hiddenSize);
+        DenseKernels.relu(ws.hidden, count * hiddenSize);
+        DenseKernels.matMulTransposed(ws.hidden, count, hiddenSize, w2, b2, ws.output, outputSize);
+        DenseKernels.softmaxRows(ws.output, count, outputSize);
+    }
+
+    public InferenceSession newSession() {
+        return new InferenceSession(this);
+    }
+
+    Workspace newWorkspace() {
+        return new Workspace(hiddenSize, outputSize);
+    }
+
+    private Workspace workspace() {
+        ThreadLocal<Workspace> local = workspaces;
+        if (local == null) {
+            synchronized (this) {
+                local = workspaces;
+                if (local == null) {
+                    local = ThreadLocal.withInitial(this::newWorkspace);
+                    workspaces = local;
+                }
+            }
+        }
+        return local.get();
     }
 }
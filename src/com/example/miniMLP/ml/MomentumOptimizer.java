@@ -0,0 +1,68 @@
+package com.example.miniMLP.ml;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+// Heavy-ball momentum, optionally with the Nesterov look-ahead:
+//   v = momentum * v + g
+//   param -= lr * v                      (classic)
+//   param -= lr * (g + momentum * v)     (Nesterov)
+public class MomentumOptimizer implements Optimizer {
+    private float lr;
+    private final float momentum;
+    private final boolean nesterov;
+    private float[][] velocity = new float[0][];
+
+    public MomentumOptimizer(float lr, float momentum, boolean nesterov) {
+        this.lr = lr;
+        this.momentum = momentum;
+        this.nesterov = nesterov;
+    }
+
+    public MomentumOptimizer(float lr) {
+        this(lr, 0.9f, false);
+    }
+
+    @Override
+    public float getLearningRate() {
+        return lr;
+    }
+
+    @Override
+    public void setLearningRate(float lr) {
+        this.lr = lr;
+    }
+
+    @Override
+    public void update(int slot, float[] param, float[] grad, float gradScale) {
+        float[] v = state(slot, param.length);
+        for (int i = 0; i < param.length; i++) {
+            float g = grad[i] * gradScale;
+            float vi = momentum * v[i] + g;
+            v[i] = vi;
+            param[i] -= lr * (nesterov ? g + momentum * vi : vi);
+        }
+    }
+
+    @Override
+    public void writeState(DataOutputStream out) throws IOException {
+        Optimizer.writeSlots(out, velocity);
+    }
+
+    @Override
+    public void readState(DataInputStream in) throws IOException {
+        velocity = Optimizer.readSlots(in);
+    }
+
+    private float[] state(int slot, int length) {
+        if (slot >= velocity.length) {
+            velocity = Arrays.copyOf(velocity, slot + 1);
+        }
+        if (velocity[slot] == null) {
+            velocity[slot] = new float[length];
+        }
+        return velocity[slot];
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.miniMLP.ml;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+// Turns averaged gradients into parameter updates. A model visits its parameter tensors in a fixed
+// order each step; slot identifies the tensor so stateful optimizers can keep per-parameter state
+// in flat buffers with exactly the same layout as the tensor itself.
+public interface Optimizer {
+    float getLearningRate();
+
+    void setLearningRate(float lr);
+
+    // Called once per update, before the tensors of that update are visited.
+    default void beginStep() {
+    }
+
+    // param -= update(grad * gradScale)
+    void update(int slot, float[] param, float[] grad, float gradScale);
+
+    // Internal state for checkpoints; stateless optimizers keep these no-ops.
+    default void writeState(DataOutputStream out) throws IOException {
+    }
+
+    default void readState(DataInputStream in) throws IOException {
+    }
+
+    // Helpers for optimizers whose state is one flat buffer per slot.
+    static void writeSlots(DataOutputStream out, float[][] slots) throws IOException {
+        out.writeInt(slots.length);
+        for (float[] slot : slots) {
+            out.writeInt(slot == null ? -1 : slot.length);
+            if (slot != null) {
+                for (float v : slot) {
+                    out.writeFloat(v);
+                }
+            }
+        }
+    }
+
+    static float[][] readSlots(DataInputStream in) throws IOException {
+        float[][] slots = new float[in.readInt()][];
+        for (int s = 0; s < slots.length; s++) {
+            int length = in.readInt();
+            if (length >= 0) {
+                slots[s] = new float[length];
+                for (int i = 0; i < length; i++) {
+                    slots[s][i] = in.readFloat();
+                }
+            }
+        }
+        return slots;
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.miniMLP.ml;
+
+import java.util.Arrays;
+
+// Binary samples packed one bit per pixel (784 pixels -> 13 longs) plus a byte class label.
+// Bit i of a sample lives in word i / 64 at position i % 64.
+public class PackedDataset {
+    private final int inputSize;
+    private final int words;
+    private long[] bits;
+    private byte[] labels;
+    private int size;
+
+    public PackedDataset(int inputSize) {
+        this(inputSize, 256);
+    }
+
+    public PackedDataset(int inputSize, int capacity) {
+        this.inputSize = inputSize;
+        this.words = wordsFor(inputSize);
+        this.bits = new long[Math.max(1, capacity) * words];
+        this.labels = new byte[Math.max(1, capacity)];
+    }
+
+    public static int wordsFor(int inputSize) {
+        return (inputSize + 63) >>> 6;
+    }
+
+    public void add(float[] pixels, int label) {
+        ensureCapacity(size + 1);
+        int off = size * words;
+        for (int i = 0; i < inputSize; i++) {
+            if (pixels[i] > 0f) {
+                bits[off + (i >>> 6)] |= 1L << i;
+            }
+        }
+        labels[size++] = (byte) label;
+    }
+
+    public void add(long[] packed, int packedOff, int label) {
+        ensureCapacity(size + 1);
+        System.arraycopy(packed, packedOff, bits, size * words, words);
+        labels[size++] = (byte) label;
+    }
+
+    public void clear() {
+        Arrays.fill(bits, 0, size * words, 0L);
+        size = 0;
+    }
+
+    public int capacity() {
+        return labels.length;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int inputSize() {
+        return inputSize;
+    }
+
+    public int words() {
+        return words;
+    }
+
+    public int label(int sample) {
+        return labels[sample];
+    }
+
+    public void unpack(int sample, float[] out) {
+        unpack(sample, out, 0);
+    }
+
+    public void unpack(int sample, float[] out, int outOff) {
+        Arrays.fill(out, outOff, outOff + inputSize, 0f);
+        int off = sample * words;
+        for (int w = 0; w < words; w++) {
+            long word = bits[off + w];
+            while (word != 0) {
+                out[outOff + (w << 6) + Long.numberOfTrailingZeros(word)] = 1f;
+                word &= word - 1;
+            }
+        }
+    }
+
+    public void pack(int sample, long[] out) {
+        System.arraycopy(bits, sample * words, out, 0, words);
+    }
+
+    long[] bits() {
+        return bits;
+    }
+
+    int offset(int sample) {
+        return sample * words;
+    }
+
+    private void ensureCapacity(int needed) {
+        if (needed > labels.length) {
+            int capacity = Math.max(needed, labels.length * 2);
+            bits = Arrays.copyOf(bits, capacity * words);
+            labels = Arrays.copyOf(labels, capacity);
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.example.miniMLP.ml;
+
+import com.example.miniMLP.metrics.Metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+public class ParallelTrainer implements AutoCloseable {
+    public enum Mode {
+        // Every worker computes gradients of its shard into private buffers, the buffers are
+        // summed in worker order and applied once per step: results do not depend on scheduling.
+        SYNCHRONOUS,
+        // Workers run mini-batch SGD on their slices of the shared weights without any locking.
+        HOGWILD
+    }
+
+    private static final int REDUCE_ROWS = 64;
+
+    private final ForkJoinPool pool;
+    private final int workers;
+    private final Mode mode;
+    private final Random rnd;
+
+    public ParallelTrainer(int workers, Mode mode, long seed) {
+        this.workers = Math.max(1, workers);
+        this.mode = mode;
+        this.rnd = new Random(seed);
+        this.pool = new ForkJoinPool(this.workers);
+    }
+
+    public ParallelTrainer(int workers, Mode mode) {
+        this(workers, mode, System.nanoTime());
+    }
+
+    public ParallelTrainer() {
+        this(Runtime.getRuntime().availableProcessors(), Mode.SYNCHRONOUS);
+    }
+
+    // One optimizer step per batchSize samples, as in single-threaded training.
+    public void train(MLP mlp, float[][] inputs, float[][] targets, int epochs, float lr, int batchSize) {
+        train(mlp, inputs.length, epochs, batchSize, new SgdOptimizer(lr),
+                (ws, order, start, count) -> ws.load(inputs, targets, order, start, count));
+    }
+
+    public void train(MLP mlp, PackedDataset data, int epochs, int batchSize, Optimizer optimizer) {
+        train(mlp, data.size(), epochs, batchSize, optimizer,
+                (ws, order, start, count) -> ws.load(data, order, start, count));
+    }
+
+    private void train(MLP mlp, int n, int epochs, int batchSize, Optimizer optimizer, BatchWorkspace.Loader loader) {
+        MLP.requirePositiveBatch(batchSize);
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        for (int epoch = 0; epoch < epochs; epoch++) {
+            long started = System.nanoTime();
+            MLP.shuffle(order, rnd);
+            float sumLoss = trainPass(mlp, order, n, batchSize, optimizer, loader);
+            float avgLoss = sumLoss / n;
+            Metrics.epoch(epoch, avgLoss, n, System.nanoTime() - started);
+        }
+    }
+
+    // Parallel counterpart of MLP.trainPass: one pass over order[0..n) in mini-batches of batchSize,
+    // returns the summed loss. The loader is called from the worker threads, each with its own workspace.
+    float trainPass(MLP mlp, int[] order, int n, int batchSize, Optimizer optimizer, BatchWorkspace.Loader loader) {
+        MLP.requirePositiveBatch(batchSize);
+        if (n == 0) {
+            return 0f;
+        }
+        return mode == Mode.HOGWILD
+                ? hogwildPass(mlp, order, n, batchSize, optimizer.getLearningRate(), loader)
+                : synchronousPass(mlp, order, n, batchSize, optimizer, loader);
+    }
+
+    // Every mini-batch is split into one shard per worker.
+    private float synchronousPass(MLP mlp, int[] order, int n, int batchSize, Optimizer optimizer,
+                                  BatchWorkspace.Loader loader) {
+        int shard = (Math.min(batchSize, n) + workers - 1) / workers;
+        int in = mlp.getInputSize(), hid = mlp.getHiddenSize(), out = mlp.getOutputSize();
+        BatchWorkspace[] spaces = new BatchWorkspace[workers];
+        Gradients[] grads = new Gradients[workers];
+        for (int w = 0; w < workers; w++) {
+            spaces[w] = new BatchWorkspace(shard, in, hid, out);
+            grads[w] = new Gradients(in, hid, out);
+        }
+
+        float sumLoss = 0f;
+        List<Callable<Float>> tasks = new ArrayList<>(workers);
+        for (int start = 0; start < n; start += batchSize) {
+            int stepStart = start;
+            int stepCount = Math.min(batchSize, n - start);
+            tasks.clear();
+            for (int w = 0; w < workers; w++) {
+                int from = stepStart + w * shard;
+                int count = Math.min(shard, stepStart + stepCount - from);
+                BatchWorkspace ws = spaces[w];
+                Gradients g = grads[w];
+                tasks.add(() -> {
+                    g.clear();
+                    if (count <= 0) {
+                        return 0f;
+                    }
+                    loader.load(ws, order, from, count);
+                    return mlp.accumulateBatch(ws, count, g);
+                });
+            }
+            for (float loss : invokeAll(tasks)) {
+                sumLoss += loss;
+            }
+            reduce(grads, in, hid);
+            mlp.applyGradients(grads[0], 1f / stepCount, optimizer);
+        }
+        return sumLoss;
+    }
+
+    // Sums all worker buffers into grads[0], always in worker order, with w1 split into row ranges across the pool.
+    private void reduce(Gradients[] grads, int inputSize, int hiddenSize) {
+        Gradients target = grads[0];
+        List<Callable<Float>> tasks = new ArrayList<>();
+        for (int r0 = 0; r0 < inputSize; r0 += REDUCE_ROWS) {
+            int from = r0 * hiddenSize;
+            int to = Math.min(r0 + REDUCE_ROWS, inputSize) * hiddenSize;
+            tasks.add(() -> {
+                for (int w = 1; w < grads.length; w++) {
+                    add(grads[w].w1, target.w1, from, to);
+                }
+                return 0f;
+            });
+        }
+        invokeAll(tasks);
+        for (int w = 1; w < grads.length; w++) {
+            add(grads[w].w2, target.w2, 0, target.w2.length);
+            add(grads[w].b1, target.b1, 0, target.b1.length);
+            add(grads[w].b2, target.b2, 0, target.b2.length);
+        }
+    }
+
+    private static void add(float[] src, float[] dst, int from, int to) {
+        for (int j = from; j < to; j++) {
+            dst[j] += src[j];
+        }
+    }
+
+    // Each worker runs mini-batch SGD over its own slice of order on the shared weights. Optimizer
+    // state cannot be shared without locking, so only the optimizer's current learning rate is used.
+    private float hogwildPass(MLP mlp, int[] order, int n, int batchSize, float lr, BatchWorkspace.Loader loader) {
+        int slice = (n + workers - 1) / workers;
+        int in = mlp.getInputSize(), hid = mlp.getHiddenSize(), out = mlp.getOutputSize();
+        List<Callable<Float>> tasks = new ArrayList<>(workers);
+        for (int w = 0; w < workers; w++) {
+            int from = w * slice;
+            int to = Math.min(n, from + slice);
+            tasks.add(() -> {
+                if (from >= to) {
+                    return 0f;
+                }
+                BatchWorkspace ws = new BatchWorkspace(Math.min(batchSize, to - from), in, hid, out);
+                Gradients g = new Gradients(in, hid, out);
+                float loss = 0f;
+                for (int start = from; start < to; start += ws.capacity) {
+                    int count = Math.min(ws.capacity, to - start);
+                    loader.load(ws, order, start, count);
+                    g.clear();
+                    loss += mlp.accumulateBatch(ws, count, g);
+                    mlp.applyGradients(g, lr / count);
+                }
+                return loss;
+            });
+        }
+        float sumLoss = 0f;
+        for (float loss : invokeAll(tasks)) {
+            sumLoss += loss;
+        }
+        return sumLoss;
+    }
+
+    private float[] invokeAll(List<Callable<Float>> tasks) {
+        float[] results = new float[tasks.size()];
+        int i = 0;
+        for (Future<Float> f : pool.invokeAll(tasks)) {
+            try {
+                results[i++] = f.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Trening przerwany", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Błąd wątku treningowego", e.getCause());
+            }
+        }
+        return results;
+    }
+
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.miniMLP.ml;
+
+import com.example.miniMLP.metrics.Metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+// Coalesces concurrent predict calls into batched forward passes. A dispatcher thread takes the
+// first waiting request, gathers more until maxBatch requests are collected or maxWaitMicros have
+// passed, and scores them with one sweep over the weights. The queue is bounded: submit() blocks
+// while it is full, trySubmit() fails fast instead.
+// Futures are completed on the dispatcher thread, so callers should not chain slow work onto them
+// without an executor.
+public class PredictionBatcher implements AutoCloseable {
+    private final MLP mlp;
+    private final int maxBatch;
+    private final long maxWaitNanos;
+    private final BlockingQueue<Request> queue;
+    private final Thread dispatcher;
+    private volatile boolean closed;
+
+    public PredictionBatcher(MLP mlp, int maxBatch, long maxWaitMicros, int queueCapacity) {
+        this.mlp = mlp;
+        this.maxBatch = Math.max(1, maxBatch);
+        this.maxWaitNanos = Math.max(0L, maxWaitMicros) * 1000L;
+        this.queue = new ArrayBlockingQueue<>(Math.max(this.maxBatch, queueCapacity));
+        this.dispatcher = new Thread(this::dispatch, "predict-batcher");
+        this.dispatcher.setDaemon(true);
+        this.dispatcher.start();
+    }
+
+    public PredictionBatcher(MLP mlp) {
+        this(mlp, 32, 200, 1024);
+    }
+
+    public int getInputSize() {
+        return mlp.getInputSize();
+    }
+
+    // Waits for room in the queue.
+    public CompletableFuture<PredictionResult> submit(float[] input) throws InterruptedException {
+        Request r = request(input);
+        queue.put(r);
+        if (closed) {
+            r.future.completeExceptionally(new IllegalStateException("Kolejka predykcji jest zamknięta"));
+        }
+        return r.future;
+    }
+
+    // Completes exceptionally with RejectedExecutionException when the queue is full.
+    public CompletableFuture<PredictionResult> trySubmit(float[] input) {
+        Request r = request(input);
+        if (!queue.offer(r)) {
+            r.future.completeExceptionally(new RejectedExecutionException("Kolejka predykcji jest pełna"));
+        } else if (closed) {
+            r.future.completeExceptionally(new IllegalStateException("Kolejka predykcji jest zamknięta"));
+        }
+        return r.future;
+    }
+
+    public int queued() {
+        return queue.size();
+    }
+
+    private Request request(float[] input) {
+        if (input.length != mlp.getInputSize()) {
+            throw new IllegalArgumentException("Nieprawidłowy rozmiar wejścia: " + input.length + ", oczekiwano " + mlp.getInputSize());
+        }
+        if (closed) {
+            throw new IllegalStateException("Kolejka predykcji jest zamknięta");
+        }
+        return new Request(input, System.nanoTime());
+    }
+
+    private void dispatch() {
+        int inputSize = mlp.getInputSize();
+        int outputSize = mlp.getOutputSize();
+        BatchWorkspace ws = new BatchWorkspace(maxBatch, inputSize, mlp.getHiddenSize(), outputSize);
+        List<Request> batch = new ArrayList<>(maxBatch);
+        try {
+            while (!closed) {
+                batch.add(queue.take());
+                long deadline = System.nanoTime() + maxWaitNanos;
+                while (batch.size() < maxBatch) {
+                    if (queue.drainTo(batch, maxBatch - batch.size()) > 0) {
+                        continue;
+                    }
+                    long left = deadline - System.nanoTime();
+                    Request next = left > 0 ? queue.poll(left, TimeUnit.NANOSECONDS) : null;
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                score(batch, ws, inputSize, outputSize);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            // close() stops the dispatcher
+        } finally {
+            fail(batch);
+            List<Request> rest = new ArrayList<>();
+            queue.drainTo(rest);
+            fail(rest);
+        }
+    }
+
+    private void score(List<Request> batch, BatchWorkspace ws, int inputSize, int outputSize) {
+        int n = batch.size();
+        long started = System.nanoTime();
+        try {
+            for (int b = 0; b < n; b++) {
+                System.arraycopy(batch.get(b).input, 0, ws.x, b * inputSize, inputSize);
+            }
+            mlp.forwardBatch(ws.x, 0, n, ws);
+        } catch (RuntimeException e) {
+            for (Request r : batch) {
+                r.future.completeExceptionally(e);
+            }
+            return;
+        }
+        // predict latency stays comparable to a direct call: the batch's compute time per row.
+        // Time spent queued before the batch started is recorded separately as batch wait.
+        long perRow = (System.nanoTime() - started) / n;
+        for (int b = 0; b < n; b++) {
+            Request r = batch.get(b);
+            float[] probs = new float[outputSize];
+            System.arraycopy(ws.output, b * outputSize, probs, 0, outputSize);
+            int best = 0;
+            for (int k = 1; k < outputSize; k++) {
+                if (probs[k] > probs[best]) {
+                    best = k;
+                }
+            }
+            Metrics.predict(perRow);
+            Metrics.batchWait(started - r.submitted);
+            r.future.complete(new PredictionResult(best, probs[best], false, probs));
+        }
+    }
+
+    private static void fail(List<Request> requests) {
+        for (Request r : requests) {
+            r.future.completeExceptionally(new IllegalStateException("Kolejka predykcji jest zamknięta"));
+        }
+        requests.clear();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        dispatcher.interrupt();
+        try {
+            dispatcher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class Request {
+        final float[] input;
+        final long submitted;
+        final CompletableFuture<PredictionResult> future = new CompletableFuture<>();
+
+        Request(float[] input, long submitted) {
+            this.input = input;
+            this.submitted = submitted;
+        }
+    }
+}
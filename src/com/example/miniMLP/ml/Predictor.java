@@ -0,0 +1,17 @@
+package com.example.miniMLP.ml;
+
+// Inference-only view of a model, shared by the fp32 MLP and its compressed variants.
+public interface Predictor {
+    int getInputSize();
+
+    int getOutputSize();
+
+    PredictionResult predict(float[] input);
+
+    PredictionResult predict(SparseInput input);
+
+    // Writes the class probabilities into probsOut and returns the index of the most likely class.
+    int predictInto(float[] input, float[] probsOut);
+
+    float evaluate(PackedDataset data);
+}
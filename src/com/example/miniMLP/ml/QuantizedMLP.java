@@ -0,0 +1,204 @@
+package com.example.miniMLP.ml;
+
+import com.example.miniMLP.metrics.Metrics;
+
+import java.util.Arrays;
+
+// Post-training int8 version of an MLP for inference only.
+// The first layer (almost all of the parameters) is stored as int8 with one scale per hidden unit
+// and accumulated in int: w1[i][j] ~ w1q[i * hiddenSize + j] * w1Scale[j]. Dense inputs are
+// quantized per sample to int8 with a single scale; binary inputs need no multiply at all.
+// Biases and the small output layer stay in fp32.
+public final class QuantizedMLP implements Predictor {
+    private final int inputSize, hiddenSize, outputSize;
+    private final byte[] w1q;
+    private final float[] w1Scale;
+    private final float[] b1;
+    private final float[] w2;
+    private final float[] b2;
+    private final ThreadLocal<Scratch> scratch;
+
+    private QuantizedMLP(int inputSize, int hiddenSize, int outputSize) {
+        this.inputSize = inputSize;
+        this.hiddenSize = hiddenSize;
+        this.outputSize = outputSize;
+        this.w1q = new byte[inputSize * hiddenSize];
+        this.w1Scale = new float[hiddenSize];
+        this.b1 = new float[hiddenSize];
+        this.w2 = new float[outputSize * hiddenSize];
+        this.b2 = new float[outputSize];
+        this.scratch = ThreadLocal.withInitial(() -> new Scratch(hiddenSize, outputSize));
+    }
+
+    public static QuantizedMLP quantize(MLP mlp) {
+        int in = mlp.getInputSize(), hid = mlp.getHiddenSize(), out = mlp.getOutputSize();
+        QuantizedMLP q = new QuantizedMLP(in, hid, out);
+        for (int j = 0; j < hid; j++) {
+            float max = 0f;
+            for (int i = 0; i < in; i++) {
+                max = Math.max(max, Math.abs(mlp.getW1(i, j)));
+            }
+            float scale = max == 0f ? 1f : max / 127f;
+            q.w1Scale[j] = scale;
+            for (int i = 0; i < in; i++) {
+                q.w1q[i * hid + j] = (byte) Math.round(mlp.getW1(i, j) / scale);
+            }
+            q.b1[j] = mlp.getB1(j);
+            for (int k = 0; k < out; k++) {
+                q.w2[k * hid + j] = mlp.getW2(j, k);
+            }
+        }
+        for (int k = 0; k < out; k++) {
+            q.b2[k] = mlp.getB2(k);
+        }
+        return q;
+    }
+
+    @Override
+    public int getInputSize() {
+        return inputSize;
+    }
+
+    @Override
+    public int getOutputSize() {
+        return outputSize;
+    }
+
+    // Bytes held by the weights and biases.
+    public long parameterBytes() {
+        return w1q.length + (long) (w1Scale.length + b1.length + w2.length + b2.length) * Float.BYTES;
+    }
+
+    @Override
+    public PredictionResult predict(float[] input) {
+        float[] output = new float[outputSize];
+        int bestIndex = predictInto(input, output);
+        return new PredictionResult(bestIndex, output[bestIndex], false, output);
+    }
+
+    @Override
+    public PredictionResult predict(SparseInput input) {
+        long started = System.nanoTime();
+        float[] output = new float[outputSize];
+        Scratch s = scratch.get();
+        forward(input, s);
+        int bestIndex = argmaxInto(s.output, output);
+        Metrics.predict(System.nanoTime() - started);
+        return new PredictionResult(bestIndex, output[bestIndex], false, output);
+    }
+
+    @Override
+    public int predictInto(float[] input, float[] probsOut) {
+        long started = System.nanoTime();
+        Scratch s = scratch.get();
+        forward(input, s);
+        int best = argmaxInto(s.output, probsOut);
+        Metrics.predict(System.nanoTime() - started);
+        return best;
+    }
+
+    @Override
+    public float evaluate(PackedDataset data) {
+        if (data.size() == 0) {
+            return 0f;
+        }
+        Scratch s = scratch.get();
+        long[] bits = data.bits();
+        int correct = 0;
+        for (int i = 0; i < data.size(); i++) {
+            forward(bits, data.offset(i), data.words(), s);
+            if (argmax(s.output) == data.label(i)) {
+                correct++;
+            }
+        }
+        return (float) correct / data.size();
+    }
+
+    private void forward(float[] input, Scratch s) {
+        float max = 0f;
+        for (int i = 0; i < inputSize; i++) {
+            max = Math.max(max, Math.abs(input[i]));
+        }
+        KernelBackend kb = Kernels.current();
+        int[] acc = s.acc;
+        Arrays.fill(acc, 0);
+        float inputScale = max == 0f ? 1f : max / 127f;
+        float inv = 1f / inputScale;
+        for (int i = 0; i < inputSize; i++) {
+            if (input[i] == 0f) {
+                continue;
+            }
+            int xq = Math.round(input[i] * inv);
+            if (xq != 0) {
+                kb.axpy(xq, w1q, i * hiddenSize, acc, 0, hiddenSize);
+            }
+        }
+        forwardOutput(s, inputScale, kb);
+    }
+
+    private void forward(SparseInput input, Scratch s) {
+        KernelBackend kb = Kernels.current();
+        int[] acc = s.acc;
+        Arrays.fill(acc, 0);
+        int[] active = input.indices();
+        for (int n = 0, count = input.count(); n < count; n++) {
+            kb.axpy(1, w1q, active[n] * hiddenSize, acc, 0, hiddenSize);
+        }
+        forwardOutput(s, 1f, kb);
+    }
+
+    private void forward(long[] bits, int off, int words, Scratch s) {
+        KernelBackend kb = Kernels.current();
+        int[] acc = s.acc;
+        Arrays.fill(acc, 0);
+        for (int w = 0; w < words; w++) {
+            long word = bits[off + w];
+            while (word != 0) {
+                kb.axpy(1, w1q, ((w << 6) + Long.numberOfTrailingZeros(word)) * hiddenSize, acc, 0, hiddenSize);
+                word &= word - 1;
+            }
+        }
+        forwardOutput(s, 1f, kb);
+    }
+
+    // Dequantizes the int accumulators once per hidden unit, then runs the fp32 output layer.
+    private void forwardOutput(Scratch s, float inputScale, KernelBackend kb) {
+        float[] hidden = s.hidden;
+        for (int j = 0; j < hiddenSize; j++) {
+            float h = s.acc[j] * inputScale * w1Scale[j] + b1[j];
+            hidden[j] = Math.max(0f, h);
+        }
+        float[] output = s.output;
+        for (int k = 0; k < outputSize; k++) {
+            output[k] = b2[k] + kb.dot(hidden, 0, w2, k * hiddenSize, hiddenSize);
+        }
+        kb.softmax(output, 0, outputSize);
+    }
+
+    private int argmax(float[] output) {
+        int best = 0;
+        for (int k = 1; k < outputSize; k++) {
+            if (output[k] > output[best]) {
+                best = k;
+            }
+        }
+        return best;
+    }
+
+    private int argmaxInto(float[] output, float[] probsOut) {
+        System.arraycopy(output, 0, probsOut, 0, outputSize);
+        return argmax(output);
+    }
+
+    private static final class Scratch {
+        final int[] acc;
+        final float[] hidden;
+        final float[] output;
+
+        Scratch(int hiddenSize, int outputSize) {
+            acc = new int[hiddenSize];
+            hidden = new float[hiddenSize];
+            output = new float[outputSize];
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.miniMLP.ml;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+// Sequential, restartable stream of labelled binary samples, read in bounded chunks so a
+// dataset never has to fit in memory at once.
+public interface SampleSource extends Closeable {
+    int inputSize();
+
+    // Rewinds to the first sample; called before every epoch.
+    void reset() throws IOException;
+
+    // Appends up to max samples to chunk and returns how many were added; 0 means the epoch is over.
+    int read(PackedDataset chunk, int max) throws IOException;
+}
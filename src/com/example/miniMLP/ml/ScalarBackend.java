@@ -0,0 +1,64 @@
+package com.example.miniMLP.ml;
+
+final class ScalarBackend implements KernelBackend {
+    @Override
+    public String name() {
+        return "scalar";
+    }
+
+    @Override
+    public float dot(float[] a, int aOff, float[] b, int bOff, int len) {
+        float sum = 0f;
+        for (int i = 0; i < len; i++) {
+            sum += a[aOff + i] * b[bOff + i];
+        }
+        return sum;
+    }
+
+    @Override
+    public void axpy(float alpha, float[] x, int xOff, float[] y, int yOff, int len) {
+        for (int i = 0; i < len; i++) {
+            y[yOff + i] += alpha * x[xOff + i];
+        }
+    }
+
+    @Override
+    public void axpy(int alpha, byte[] x, int xOff, int[] y, int yOff, int len) {
+        for (int i = 0; i < len; i++) {
+            y[yOff + i] += alpha * x[xOff + i];
+        }
+    }
+
+    @Override
+    public float dot(float[] a, int aOff, short[] b, int bOff, HalfFormat format, int len) {
+        float sum = 0f;
+        for (int i = 0; i < len; i++) {
+            sum += a[aOff + i] * format.toFloat(b[bOff + i]);
+        }
+        return sum;
+    }
+
+    @Override
+    public void axpy(float alpha, short[] x, int xOff, HalfFormat format, float[] y, int yOff, int len) {
+        for (int i = 0; i < len; i++) {
+            y[yOff + i] += alpha * format.toFloat(x[xOff + i]);
+        }
+    }
+
+    @Override
+    public void softmax(float[] v, int off, int len) {
+        float max = Float.NEGATIVE_INFINITY;
+        for (int k = 0; k < len; k++) {
+            max = Math.max(max, v[off + k]);
+        }
+        float sumExp = 0f;
+        for (int k = 0; k < len; k++) {
+            float e = (float) Math.exp(v[off + k] - max);
+            v[off + k] = e;
+            sumExp += e;
+        }
+        for (int k = 0; k < len; k++) {
+            v[off + k] /= sumExp;
+        }
+    }
+}
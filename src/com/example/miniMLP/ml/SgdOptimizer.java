@@ -0,0 +1,24 @@
+package com.example.miniMLP.ml;
+
+public class SgdOptimizer implements Optimizer {
+    private float lr;
+
+    public SgdOptimizer(float lr) {
+        this.lr = lr;
+    }
+
+    @Override
+    public float getLearningRate() {
+        return lr;
+    }
+
+    @Override
+    public void setLearningRate(float lr) {
+        this.lr = lr;
+    }
+
+    @Override
+    public void update(int slot, float[] param, float[] grad, float gradScale) {
+        Kernels.current().axpy(-lr * gradScale, grad, 0, param, 0, param.length);
+    }
+}
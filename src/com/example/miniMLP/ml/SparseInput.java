@@ -0,0 +1,44 @@
+package com.example.miniMLP.ml;
+
+// Binary input stored as the list of active (non-zero) positions; every active position counts as 1.0.
+public class SparseInput {
+    private final int[] indices;
+    private int count;
+
+    public SparseInput(int size) {
+        this.indices = new int[size];
+    }
+
+    public static SparseInput fromDense(float[] dense) {
+        SparseInput sparse = new SparseInput(dense.length);
+        sparse.set(dense);
+        return sparse;
+    }
+
+    public void set(float[] dense) {
+        int n = 0;
+        for (int i = 0; i < dense.length; i++) {
+            if (dense[i] > 0f) {
+                indices[n++] = i;
+            }
+        }
+        count = n;
+    }
+
+    public void set(int[] active, int activeCount) {
+        System.arraycopy(active, 0, indices, 0, activeCount);
+        count = activeCount;
+    }
+
+    public int count() {
+        return count;
+    }
+
+    public int index(int n) {
+        return indices[n];
+    }
+
+    int[] indices() {
+        return indices;
+    }
+}
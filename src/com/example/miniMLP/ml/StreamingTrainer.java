@@ -0,0 +1,135 @@
+package com.example.miniMLP.ml;
+
+import com.example.miniMLP.metrics.EpochStats;
+import com.example.miniMLP.metrics.Metrics;
+
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+// Trains from a SampleSource chunk by chunk. A prefetch thread fills the next chunk while the
+// current one is being trained on (double buffering), so heap use is bounded by two chunks no
+// matter how large the dataset is. Samples are shuffled within each chunk.
+public class StreamingTrainer {
+    private final int chunkSize;
+
+    public StreamingTrainer(int chunkSize) {
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    public void train(MLP mlp, SampleSource source, int epochs, float lr, int batchSize) throws IOException {
+        train(mlp, source, epochs, batchSize, new SgdOptimizer(lr));
+    }
+
+    public void train(MLP mlp, SampleSource source, int epochs, int batchSize, Optimizer optimizer) throws IOException {
+        train(mlp, source, epochs, batchSize, optimizer, LearningRateSchedule.constant());
+    }
+
+    public void train(MLP mlp, SampleSource source, int epochs, int batchSize, Optimizer optimizer,
+                      LearningRateSchedule schedule) throws IOException {
+        MLP.requirePositiveBatch(batchSize);
+        BlockingQueue<PackedDataset> free = new ArrayBlockingQueue<>(2);
+        BlockingQueue<PackedDataset> full = new ArrayBlockingQueue<>(2);
+        free.add(new PackedDataset(source.inputSize(), chunkSize));
+        free.add(new PackedDataset(source.inputSize(), chunkSize));
+        Prefetcher prefetcher = new Prefetcher(source, epochs, free, full);
+        Thread thread = new Thread(prefetcher, "sample-prefetch");
+        thread.setDaemon(true);
+        thread.start();
+
+        int[] order = new int[chunkSize];
+        BatchWorkspace ws = new BatchWorkspace(Math.min(batchSize, chunkSize), mlp.getInputSize(), mlp.getHiddenSize(), mlp.getOutputSize());
+        Gradients grads = new Gradients(mlp.getInputSize(), mlp.getHiddenSize(), mlp.getOutputSize());
+        float baseLr = optimizer.getLearningRate();
+        try {
+            for (int epoch = 0; epoch < epochs; epoch++) {
+                long started = System.nanoTime();
+                float lr = schedule.rate(epoch, baseLr);
+                optimizer.setLearningRate(lr);
+                float sumLoss = 0f;
+                long seen = 0;
+                while (true) {
+                    PackedDataset chunk = full.take();
+                    if (prefetcher.failure != null) {
+                        throw prefetcher.failure;
+                    }
+                    int n = chunk.size();
+                    if (n == 0) {
+                        free.put(chunk);
+                        break;
+                    }
+                    for (int i = 0; i < n; i++) {
+                        order[i] = i;
+                    }
+                    mlp.shuffle(order, n);
+                    sumLoss += mlp.trainPass(order, n, optimizer, ws, grads, (w, o, start, count) -> w.load(chunk, o, start, count));
+                    seen += n;
+                    free.put(chunk);
+                }
+                float avgLoss = seen == 0 ? 0f : sumLoss / seen;
+                EpochStats stats = new EpochStats(epoch, avgLoss, seen, System.nanoTime() - started);
+                stats.learningRate = lr;
+                Metrics.epoch(stats);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Trening przerwany", e);
+        } finally {
+            optimizer.setLearningRate(baseLr);
+            stop(thread);
+        }
+    }
+
+    // Waits for the prefetcher to exit, so the caller may close or reset the source once train() returns.
+    private static void stop(Thread thread) {
+        thread.interrupt();
+        boolean interrupted = false;
+        while (true) {
+            try {
+                thread.join();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class Prefetcher implements Runnable {
+        private final SampleSource source;
+        private final int epochs;
+        private final BlockingQueue<PackedDataset> free;
+        private final BlockingQueue<PackedDataset> full;
+        private volatile IOException failure;
+
+        Prefetcher(SampleSource source, int epochs, BlockingQueue<PackedDataset> free, BlockingQueue<PackedDataset> full) {
+            this.source = source;
+            this.epochs = epochs;
+            this.free = free;
+            this.full = full;
+        }
+
+        @Override
+        public void run() {
+            try {
+                for (int epoch = 0; epoch < epochs; epoch++) {
+                    source.reset();
+                    int n;
+                    do {
+                        PackedDataset chunk = free.take();
+                        chunk.clear();
+                        n = source.read(chunk, chunk.capacity());
+                        full.put(chunk);
+                    } while (n > 0);
+                }
+            } catch (IOException | RuntimeException e) {
+                failure = e instanceof IOException io ? io : new IOException(e);
+                full.offer(new PackedDataset(source.inputSize(), 1));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,302 @@
+package com.example.miniMLP.ml;
+
+import com.example.miniMLP.metrics.EpochStats;
+import com.example.miniMLP.metrics.Metrics;
+
+import java.io.*;
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.Consumer;
+
+// Mini-batch training with a holdout validation split, patience-based early stopping, a
+// learning-rate schedule and restoration of the best weights seen. Without a validation split
+// the training loss is monitored instead. Optionally hands a TrainingState snapshot to a sink every
+// N epochs and/or seconds; resume() continues from such a snapshot.
+public class TrainingController {
+    private final int maxEpochs;
+    private final int batchSize;
+    private final Optimizer optimizer;
+    private float validationFraction = 0.2f;
+    private int patience = 10;
+    private float minDelta = 1e-4f;
+    private LearningRateSchedule schedule = LearningRateSchedule.constant();
+    private long seed = 42L;
+    private Consumer<TrainingState> checkpointSink;
+    private int checkpointEpochs;
+    private long checkpointMillis;
+    private int workers = 1;
+    private ParallelTrainer.Mode parallelMode = ParallelTrainer.Mode.SYNCHRONOUS;
+
+    public TrainingController(int maxEpochs, int batchSize, Optimizer optimizer) {
+        this.maxEpochs = maxEpochs;
+        this.batchSize = MLP.requirePositiveBatch(batchSize);
+        this.optimizer = optimizer;
+    }
+
+    public TrainingController validationSplit(float fraction) {
+        this.validationFraction = Math.max(0f, Math.min(0.9f, fraction));
+        return this;
+    }
+
+    // Stops after this many epochs without an improvement of at least minDelta; 0 disables early stopping.
+    public TrainingController patience(int epochs, float minDelta) {
+        this.patience = epochs;
+        this.minDelta = minDelta;
+        return this;
+    }
+
+    public TrainingController schedule(LearningRateSchedule schedule) {
+        this.schedule = schedule;
+        return this;
+    }
+
+    // Seed of the validation split.
+    public TrainingController seed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    // Snapshots are taken on the training thread (a copy of weights and optimizer state) and passed to
+    // sink, which should hand them off instead of doing slow I/O. Either interval may be 0 to disable it.
+    public TrainingController checkpoints(Consumer<TrainingState> sink, int everyEpochs, long everyMillis) {
+        this.checkpointSink = sink;
+        this.checkpointEpochs = everyEpochs;
+        this.checkpointMillis = everyMillis;
+        return this;
+    }
+
+    // Trains every mini-batch on workers threads; 1 keeps the single-threaded loop. SYNCHRONOUS results
+    // do not depend on scheduling, but they do on the worker count, since gradients are summed per shard.
+    public TrainingController parallel(int workers, ParallelTrainer.Mode mode) {
+        this.workers = Math.max(1, workers);
+        this.parallelMode = mode;
+        return this;
+    }
+
+    public TrainingReport train(MLP mlp, PackedDataset data) {
+        return run(mlp, data, null);
+    }
+
+    // Continues the run saved in state. The model, data, optimizer type and split seed must match the original run.
+    public TrainingReport resume(MLP mlp, PackedDataset data, TrainingState state) {
+        if (state.inputSize != mlp.getInputSize() || state.hiddenSize != mlp.getHiddenSize()
+                || state.outputSize != mlp.getOutputSize()) {
+            throw new IllegalArgumentException("Checkpoint nie pasuje do rozmiaru modelu");
+        }
+        if (!optimizer.getClass().getName().equals(state.optimizer)) {
+            throw new IllegalArgumentException("Checkpoint zapisany dla innego optymalizatora: " + state.optimizer);
+        }
+        seed = state.splitSeed;
+        return run(mlp, data, state);
+    }
+
+    private TrainingReport run(MLP mlp, PackedDataset data, TrainingState resumeFrom) {
+        if (workers == 1) {
+            return run(mlp, data, resumeFrom, null);
+        }
+        try (ParallelTrainer parallel = new ParallelTrainer(workers, parallelMode, seed)) {
+            return run(mlp, data, resumeFrom, parallel);
+        }
+    }
+
+    private TrainingReport run(MLP mlp, PackedDataset data, TrainingState resumeFrom, ParallelTrainer parallel) {
+        long started = System.nanoTime();
+        PackedDataset trainSet = new PackedDataset(data.inputSize(), data.size());
+        PackedDataset validationSet = new PackedDataset(data.inputSize(), Math.max(1, (int) (data.size() * validationFraction)));
+        split(data, trainSet, validationSet);
+
+        int n = trainSet.size();
+        int[] order = new int[n];
+        BatchWorkspace ws = new BatchWorkspace(Math.max(1, Math.min(batchSize, n)), mlp.getInputSize(), mlp.getHiddenSize(), mlp.getOutputSize());
+        Gradients grads = new Gradients(mlp.getInputSize(), mlp.getHiddenSize(), mlp.getOutputSize());
+        BatchWorkspace.Loader loader = (w, o, start, count) -> w.load(trainSet, o, start, count);
+
+        TrainingReport report = new TrainingReport();
+        report.trainingSamples = n;
+        report.validationSamples = validationSet.size();
+        float[] trainLoss = new float[maxEpochs];
+        float[] validationLoss = new float[maxEpochs];
+        float[] validationAccuracy = new float[maxEpochs];
+        float[] learningRate = new float[maxEpochs];
+        float[] best = new float[mlp.parameterCount()];
+        float bestScore = Float.POSITIVE_INFINITY;
+        float baseLr = optimizer.getLearningRate();
+        Random rnd = new Random(seed + 1);
+        int sinceBest = 0;
+        int epoch = 0;
+        if (resumeFrom != null) {
+            restore(resumeFrom, mlp, best, trainLoss, validationLoss, validationAccuracy, learningRate);
+            rnd = readRandom(resumeFrom.rngState);
+            bestScore = resumeFrom.bestScore;
+            report.bestEpoch = resumeFrom.bestEpoch;
+            sinceBest = resumeFrom.sinceBest;
+            epoch = Math.min(resumeFrom.epoch, maxEpochs);
+        } else {
+            // If no epoch ever improves (e.g. the loss is NaN from the start) the initial weights are restored.
+            mlp.writeParameters(FloatBuffer.wrap(best));
+            report.bestEpoch = -1;
+        }
+        long lastCheckpoint = System.nanoTime();
+        for (; epoch < maxEpochs; epoch++) {
+            long epochStarted = System.nanoTime();
+            float lr = schedule.rate(epoch, baseLr);
+            optimizer.setLearningRate(lr);
+            learningRate[epoch] = lr;
+            // Restarting from the identity makes each epoch's order a function of the RNG state alone.
+            for (int i = 0; i < n; i++) {
+                order[i] = i;
+            }
+            MLP.shuffle(order, n, rnd);
+            float sumLoss = parallel != null
+                    ? parallel.trainPass(mlp, order, n, batchSize, optimizer, loader)
+                    : mlp.trainPass(order, n, optimizer, ws, grads, loader);
+            trainLoss[epoch] = n == 0 ? 0f : sumLoss / n;
+
+            float score = trainLoss[epoch];
+            if (validationSet.size() > 0) {
+                validationLoss[epoch] = mlp.crossEntropy(validationSet);
+                validationAccuracy[epoch] = mlp.evaluate(validationSet);
+                score = validationLoss[epoch];
+            } else {
+                validationLoss[epoch] = Float.NaN;
+                validationAccuracy[epoch] = Float.NaN;
+            }
+            EpochStats stats = new EpochStats(epoch, trainLoss[epoch], n, System.nanoTime() - epochStarted);
+            stats.learningRate = lr;
+            stats.validationLoss = validationLoss[epoch];
+            stats.validationAccuracy = validationAccuracy[epoch];
+            Metrics.epoch(stats);
+
+            if (score < bestScore - minDelta) {
+                bestScore = score;
+                report.bestEpoch = epoch;
+                mlp.writeParameters(FloatBuffer.wrap(best));
+                sinceBest = 0;
+            } else if (patience > 0 && ++sinceBest >= patience) {
+                report.stoppedEarly = true;
+                epoch++;
+                break;
+            }
+
+            if (checkpointSink != null && epoch + 1 < maxEpochs) {
+                long now = System.nanoTime();
+                boolean byEpoch = checkpointEpochs > 0 && (epoch + 1) % checkpointEpochs == 0;
+                boolean byTime = checkpointMillis > 0 && now - lastCheckpoint >= checkpointMillis * 1_000_000;
+                if (byEpoch || byTime) {
+                    lastCheckpoint = now;
+                    checkpointSink.accept(snapshot(mlp, epoch + 1, best, bestScore, report.bestEpoch, sinceBest, rnd,
+                            trainLoss, validationLoss, validationAccuracy, learningRate));
+                }
+            }
+        }
+        optimizer.setLearningRate(baseLr);
+        if (epoch > 0) {
+            mlp.readParameters(FloatBuffer.wrap(best));
+        }
+
+        report.epochsRun = epoch;
+        report.trainLoss = Arrays.copyOf(trainLoss, epoch);
+        report.validationLoss = Arrays.copyOf(validationLoss, epoch);
+        report.validationAccuracy = Arrays.copyOf(validationAccuracy, epoch);
+        report.learningRate = Arrays.copyOf(learningRate, epoch);
+        if (report.bestEpoch >= 0 && validationSet.size() > 0) {
+            report.bestValidationLoss = validationLoss[report.bestEpoch];
+            report.bestValidationAccuracy = validationAccuracy[report.bestEpoch];
+        }
+        report.trainingMillis = (System.nanoTime() - started) / 1_000_000;
+        return report;
+    }
+
+    private TrainingState snapshot(MLP mlp, int epochsDone, float[] best, float bestScore, int bestEpoch, int sinceBest,
+                                   Random rnd, float[] trainLoss, float[] validationLoss, float[] validationAccuracy,
+                                   float[] learningRate) {
+        TrainingState state = new TrainingState();
+        state.inputSize = mlp.getInputSize();
+        state.hiddenSize = mlp.getHiddenSize();
+        state.outputSize = mlp.getOutputSize();
+        state.epoch = epochsDone;
+        state.splitSeed = seed;
+        state.parameters = new float[mlp.parameterCount()];
+        mlp.writeParameters(FloatBuffer.wrap(state.parameters));
+        state.bestParameters = best.clone();
+        state.bestScore = bestScore;
+        state.bestEpoch = bestEpoch;
+        state.sinceBest = sinceBest;
+        state.optimizer = optimizer.getClass().getName();
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+                out.writeObject(rnd);
+            }
+            state.rngState = bytes.toByteArray();
+            bytes = new ByteArrayOutputStream();
+            try (DataOutputStream out = new DataOutputStream(bytes)) {
+                optimizer.writeState(out);
+            }
+            state.optimizerState = bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        state.trainLoss = Arrays.copyOf(trainLoss, epochsDone);
+        state.validationLoss = Arrays.copyOf(validationLoss, epochsDone);
+        state.validationAccuracy = Arrays.copyOf(validationAccuracy, epochsDone);
+        state.learningRate = Arrays.copyOf(learningRate, epochsDone);
+        return state;
+    }
+
+    private void restore(TrainingState state, MLP mlp, float[] best, float[] trainLoss, float[] validationLoss,
+                         float[] validationAccuracy, float[] learningRate) {
+        mlp.readParameters(FloatBuffer.wrap(state.parameters));
+        System.arraycopy(state.bestParameters, 0, best, 0, best.length);
+        int epochs = Math.min(state.epoch, maxEpochs);
+        System.arraycopy(state.trainLoss, 0, trainLoss, 0, epochs);
+        System.arraycopy(state.validationLoss, 0, validationLoss, 0, epochs);
+        System.arraycopy(state.validationAccuracy, 0, validationAccuracy, 0, epochs);
+        System.arraycopy(state.learningRate, 0, learningRate, 0, epochs);
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(state.optimizerState))) {
+            optimizer.readState(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Random readRandom(byte[] bytes) {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return (Random) in.readObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Stratified: the same fraction of every class goes to validation, chosen at random with the fixed seed.
+    private void split(PackedDataset data, PackedDataset trainSet, PackedDataset validationSet) {
+        int n = data.size();
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        MLP.shuffle(order, new Random(seed));
+        int classes = 0;
+        for (int i = 0; i < n; i++) {
+            classes = Math.max(classes, data.label(i) + 1);
+        }
+        int[] perClass = new int[classes];
+        for (int i = 0; i < n; i++) {
+            perClass[data.label(i)]++;
+        }
+        int[] taken = new int[classes];
+        long[] bits = data.bits();
+        for (int i : order) {
+            int label = data.label(i);
+            if (taken[label] < Math.round(perClass[label] * validationFraction)) {
+                taken[label]++;
+                validationSet.add(bits, data.offset(i), label);
+            } else {
+                trainSet.add(bits, data.offset(i), label);
+            }
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.miniMLP.ml;
+
+import java.util.Locale;
+
+public class TrainingReport {
+    public int epochsRun;
+    public int bestEpoch;
+    public boolean stoppedEarly;
+    public int trainingSamples;
+    public int validationSamples;
+    // Validation metrics of the restored (best) weights; NaN when no validation split was used.
+    public float bestValidationLoss = Float.NaN;
+    public float bestValidationAccuracy = Float.NaN;
+    public long trainingMillis;
+    // Per-epoch history, epochsRun entries each.
+    public float[] trainLoss;
+    public float[] validationLoss;
+    public float[] validationAccuracy;
+    public float[] learningRate;
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT,
+                "Epoki: %d%s, najlepsza epoka: %d, strata walidacyjna: %.4f, dokładność walidacyjna: %.4f, próbki: %d/%d, czas: %d ms",
+                epochsRun, stoppedEarly ? " (wczesne zatrzymanie)" : "", bestEpoch, bestValidationLoss,
+                bestValidationAccuracy, trainingSamples, validationSamples, trainingMillis);
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.miniMLP.ml;
+
+// Everything TrainingController needs to continue a run exactly where it left off. Instances
+// handed to a checkpoint sink are private copies, so they can be written from another thread.
+public class TrainingState {
+    public int inputSize, hiddenSize, outputSize;
+    // Number of completed epochs, i.e. the next epoch to run.
+    public int epoch;
+    public long splitSeed;
+    public float[] parameters;
+    public float[] bestParameters;
+    public float bestScore;
+    public int bestEpoch;
+    public int sinceBest;
+    // java.util.Random of the epoch shuffles, serialized.
+    public byte[] rngState;
+    public String optimizer;
+    public byte[] optimizerState;
+    public float[] trainLoss;
+    public float[] validationLoss;
+    public float[] validationAccuracy;
+    public float[] learningRate;
+}
@@ -0,0 +1,168 @@
+package com.example.miniMLP.ml;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+// Only loaded reflectively by Kernels, so the rest of the code runs without jdk.incubator.vector.
+final class VectorBackend implements KernelBackend {
+    private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+    private static final KernelBackend SCALAR = new ScalarBackend();
+    private static final VectorSpecies<Integer> INT_SPECIES = IntVector.SPECIES_PREFERRED;
+    // Bytes are loaded a quarter register at a time so that widening them fills one int register.
+    // There is no shape below 64 bits, so on 128-bit hosts a 64-bit load is widened part-wise
+    // (only its first half is used); the loops below keep such loads inside the array.
+    private static final VectorSpecies<Byte> BYTE_SPECIES = VectorSpecies.of(byte.class,
+            shapeOf(INT_SPECIES.vectorBitSize() / 4));
+    private static final VectorSpecies<Short> SHORT_SPECIES = VectorSpecies.of(short.class,
+            shapeOf(INT_SPECIES.vectorBitSize() / 2));
+
+    private static VectorShape shapeOf(int bits) {
+        return VectorShape.forBitSize(Math.max(bits, VectorShape.S_64_BIT.vectorBitSize()));
+    }
+
+    @Override
+    public String name() {
+        return "vector-" + SPECIES.vectorBitSize();
+    }
+
+    @Override
+    public float dot(float[] a, int aOff, float[] b, int bOff, int len) {
+        FloatVector acc = FloatVector.zero(SPECIES);
+        int bound = SPECIES.loopBound(len);
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            FloatVector va = FloatVector.fromArray(SPECIES, a, aOff + i);
+            FloatVector vb = FloatVector.fromArray(SPECIES, b, bOff + i);
+            acc = va.fma(vb, acc);
+        }
+        float sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < len; i++) {
+            sum += a[aOff + i] * b[bOff + i];
+        }
+        return sum;
+    }
+
+    @Override
+    public void axpy(float alpha, float[] x, int xOff, float[] y, int yOff, int len) {
+        FloatVector va = FloatVector.broadcast(SPECIES, alpha);
+        int bound = SPECIES.loopBound(len);
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            FloatVector vx = FloatVector.fromArray(SPECIES, x, xOff + i);
+            FloatVector vy = FloatVector.fromArray(SPECIES, y, yOff + i);
+            vx.fma(va, vy).intoArray(y, yOff + i);
+        }
+        for (; i < len; i++) {
+            y[yOff + i] += alpha * x[xOff + i];
+        }
+    }
+
+    @Override
+    public void axpy(int alpha, byte[] x, int xOff, int[] y, int yOff, int len) {
+        // Last start from which both the byte load and the int store stay within len.
+        int bound = len - Math.max(INT_SPECIES.length(), BYTE_SPECIES.length());
+        int i = 0;
+        for (; i <= bound; i += INT_SPECIES.length()) {
+            IntVector vx = (IntVector) ByteVector.fromArray(BYTE_SPECIES, x, xOff + i)
+                    .convertShape(VectorOperators.B2I, INT_SPECIES, 0);
+            IntVector vy = IntVector.fromArray(INT_SPECIES, y, yOff + i);
+            (alpha == 1 ? vy.add(vx) : vy.add(vx.mul(alpha))).intoArray(y, yOff + i);
+        }
+        for (; i < len; i++) {
+            y[yOff + i] += alpha * x[xOff + i];
+        }
+    }
+
+    // bf16 is widened in registers (shift into the high half of an int); fp16 has no Vector API
+    // conversion, so it goes through Float.float16ToFloat, which the JIT intrinsifies where it can.
+    @Override
+    public float dot(float[] a, int aOff, short[] b, int bOff, HalfFormat format, int len) {
+        if (format != HalfFormat.BF16 || SPECIES.length() != INT_SPECIES.length()) {
+            return SCALAR.dot(a, aOff, b, bOff, format, len);
+        }
+        FloatVector acc = FloatVector.zero(SPECIES);
+        int bound = len - Math.max(SPECIES.length(), SHORT_SPECIES.length());
+        int i = 0;
+        for (; i <= bound; i += SPECIES.length()) {
+            FloatVector va = FloatVector.fromArray(SPECIES, a, aOff + i);
+            acc = va.fma(widenBf16(b, bOff + i), acc);
+        }
+        float sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < len; i++) {
+            sum += a[aOff + i] * format.toFloat(b[bOff + i]);
+        }
+        return sum;
+    }
+
+    @Override
+    public void axpy(float alpha, short[] x, int xOff, HalfFormat format, float[] y, int yOff, int len) {
+        if (format != HalfFormat.BF16 || SPECIES.length() != INT_SPECIES.length()) {
+            SCALAR.axpy(alpha, x, xOff, format, y, yOff, len);
+            return;
+        }
+        FloatVector va = FloatVector.broadcast(SPECIES, alpha);
+        int bound = len - Math.max(SPECIES.length(), SHORT_SPECIES.length());
+        int i = 0;
+        for (; i <= bound; i += SPECIES.length()) {
+            FloatVector vy = FloatVector.fromArray(SPECIES, y, yOff + i);
+            widenBf16(x, xOff + i).fma(va, vy).intoArray(y, yOff + i);
+        }
+        for (; i < len; i++) {
+            y[yOff + i] += alpha * format.toFloat(x[xOff + i]);
+        }
+    }
+
+    private static FloatVector widenBf16(short[] x, int off) {
+        return ((IntVector) ShortVector.fromArray(SHORT_SPECIES, x, off).convertShape(VectorOperators.S2I, INT_SPECIES, 0))
+                .lanewise(VectorOperators.LSHL, 16)
+                .reinterpretAsFloats();
+    }
+
+    @Override
+    public void softmax(float[] v, int off, int len) {
+        int bound = SPECIES.loopBound(len);
+        float max = Float.NEGATIVE_INFINITY;
+        int i = 0;
+        if (bound > 0) {
+            FloatVector vmax = FloatVector.broadcast(SPECIES, Float.NEGATIVE_INFINITY);
+            for (; i < bound; i += SPECIES.length()) {
+                vmax = vmax.max(FloatVector.fromArray(SPECIES, v, off + i));
+            }
+            max = vmax.reduceLanes(VectorOperators.MAX);
+        }
+        for (; i < len; i++) {
+            max = Math.max(max, v[off + i]);
+        }
+
+        float sumExp = 0f;
+        i = 0;
+        if (bound > 0) {
+            FloatVector vsum = FloatVector.zero(SPECIES);
+            for (; i < bound; i += SPECIES.length()) {
+                FloatVector e = FloatVector.fromArray(SPECIES, v, off + i).sub(max).lanewise(VectorOperators.EXP);
+                e.intoArray(v, off + i);
+                vsum = vsum.add(e);
+            }
+            sumExp = vsum.reduceLanes(VectorOperators.ADD);
+        }
+        for (; i < len; i++) {
+            float e = (float) Math.exp(v[off + i] - max);
+            v[off + i] = e;
+            sumExp += e;
+        }
+
+        float inv = 1f / sumExp;
+        i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            FloatVector.fromArray(SPECIES, v, off + i).mul(inv).intoArray(v, off + i);
+        }
+        for (; i < len; i++) {
+            v[off + i] *= inv;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.miniMLP.ml;
+
+final class Workspace {
+    final float[] hidden;
+    final float[] output;
+    final float[] dOutput;
+    final float[] dHidden;
+
+    Workspace(int hiddenSize, int outputSize) {
+        hidden = new float[hiddenSize];
+        output = new float[outputSize];
+        dOutput = new float[outputSize];
+        dHidden = new float[hiddenSize];
+    }
+}
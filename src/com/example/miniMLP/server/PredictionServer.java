@@ -0,0 +1,490 @@
+package com.example.miniMLP.server;
+
+import com.example.miniMLP.metrics.Metrics;
+import com.example.miniMLP.ml.PredictionBatcher;
+import com.example.miniMLP.ml.PredictionResult;
+import com.example.miniMLP.ml.Predictor;
+import com.example.miniMLP.ml.SparseInput;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+// Serves a Predictor over HTTP on the loopback interface, one virtual thread per request.
+// With a PredictionBatcher, concurrent requests are scored together and a full queue answers 503.
+//   POST /predict  one sample of getInputSize() pixels, as any of:
+//                  application/json          [0,1,...], {"input":[...]} or {"bits":"<base64>"}, nothing else
+//                  text/plain                base64 of the bit-packed sample
+//                  application/octet-stream  little-endian float32 values, or the bit-packed bytes
+//                  Bit-packed: pixel i is bit (i & 7) of byte (i >> 3), set when the pixel is non-zero.
+//   GET  /health   model shape
+//   GET  /metrics  request counters and the Metrics registry as JSON
+public class PredictionServer implements AutoCloseable {
+    private static final String[] SYMBOLS = {"e", "l", "f"};
+
+    private final Predictor model;
+    private final PredictionBatcher batcher;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final int inputSize;
+    private final int packedSize;
+    private final int maxBody;
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    public PredictionServer(Predictor model, int port) throws IOException {
+        this(model, null, port);
+    }
+
+    // batcher may be null; when given it must wrap the same model.
+    public PredictionServer(Predictor model, PredictionBatcher batcher, int port) throws IOException {
+        this.model = model;
+        this.batcher = batcher;
+        this.inputSize = model.getInputSize();
+        this.packedSize = (inputSize + 7) >>> 3;
+        // A JSON array of floats needs at most ~24 characters per pixel.
+        this.maxBody = 1024 + inputSize * 24;
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        server.createContext("/predict", guarded("POST", this::predict));
+        server.createContext("/health", guarded("GET", this::health));
+        server.createContext("/metrics", guarded("GET", this::metrics));
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.close();
+        if (batcher != null) {
+            batcher.close();
+        }
+    }
+
+    private interface Handler {
+        void handle(HttpExchange exchange) throws IOException;
+    }
+
+    private HttpHandler guarded(String method, Handler handler) {
+        return exchange -> {
+            try {
+                requests.increment();
+                if (!method.equals(exchange.getRequestMethod())) {
+                    exchange.getResponseHeaders().set("Allow", method);
+                    reject(exchange, 405, "Dozwolona metoda: " + method);
+                    return;
+                }
+                handler.handle(exchange);
+            } catch (HttpError e) {
+                reject(exchange, e.status, e.getMessage());
+            } catch (IOException | RuntimeException e) {
+                failures.increment();
+                e.printStackTrace();
+                try {
+                    send(exchange, 500, "{\"error\":\"Błąd serwera\"}");
+                } catch (IOException ignored) {
+                    // the client is already gone
+                }
+            } finally {
+                exchange.close();
+            }
+        };
+    }
+
+    private void predict(HttpExchange exchange) throws IOException {
+        byte[] body = readBody(exchange);
+        String type = contentType(exchange);
+        PredictionResult result;
+        if (type.equals("application/json")) {
+            result = predictJson(new String(body, StandardCharsets.UTF_8));
+        } else if (type.equals("text/plain")) {
+            result = score(unpackBits(decodeBase64(new String(body, StandardCharsets.US_ASCII).strip())));
+        } else if (type.equals("application/octet-stream")) {
+            result = predictRaw(body);
+        } else {
+            throw new HttpError(415, "Nieobsługiwany typ danych: " + type);
+        }
+        send(exchange, 200, toJson(result));
+    }
+
+    // The whole body is parsed before anything is scored, so trailing garbage is a 400 and not a wasted prediction.
+    private PredictionResult predictJson(String json) {
+        JsonReader in = new JsonReader(json);
+        float[] dense = null;
+        SparseInput sparse = null;
+        if (in.peek() == '[') {
+            dense = in.readNumbers(inputSize);
+        } else {
+            in.expect('{');
+            String key = in.readString();
+            in.expect(':');
+            if (key.equals("input")) {
+                dense = in.readNumbers(inputSize);
+            } else if (key.equals("bits")) {
+                sparse = unpackBits(decodeBase64(in.readString()));
+            } else {
+                throw new HttpError(400, "Nieznane pole: " + key + ", oczekiwano input albo bits");
+            }
+            in.expect('}');
+        }
+        in.end();
+        return dense != null ? score(dense) : score(sparse);
+    }
+
+    private PredictionResult predictRaw(byte[] body) {
+        if (body.length == inputSize * Float.BYTES) {
+            float[] input = new float[inputSize];
+            ByteBuffer.wrap(body).order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer().get(input);
+            return score(input);
+        }
+        if (body.length == packedSize) {
+            return score(unpackBits(body));
+        }
+        throw new HttpError(400, "Nieprawidłowy rozmiar danych: " + body.length + " B, oczekiwano "
+                + inputSize * Float.BYTES + " lub " + packedSize + " B");
+    }
+
+    private PredictionResult score(float[] input) {
+        if (batcher == null) {
+            return model.predict(input);
+        }
+        try {
+            return batcher.trySubmit(input).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RejectedExecutionException) {
+                throw new HttpError(503, "Serwer jest przeciążony");
+            }
+            throw e;
+        }
+    }
+
+    private PredictionResult score(SparseInput input) {
+        if (batcher == null) {
+            return model.predict(input);
+        }
+        float[] dense = new float[inputSize];
+        for (int n = 0; n < input.count(); n++) {
+            dense[input.index(n)] = 1f;
+        }
+        return score(dense);
+    }
+
+    private SparseInput unpackBits(byte[] packed) {
+        if (packed.length != packedSize) {
+            throw new HttpError(400, "Nieprawidłowy rozmiar danych: " + packed.length + " B, oczekiwano " + packedSize + " B");
+        }
+        int[] active = new int[inputSize];
+        int n = 0;
+        for (int b = 0; b < packed.length; b++) {
+            int v = packed[b] & 0xFF;
+            while (v != 0) {
+                int i = (b << 3) + Integer.numberOfTrailingZeros(v);
+                if (i < inputSize) {
+                    active[n++] = i;
+                }
+                v &= v - 1;
+            }
+        }
+        SparseInput input = new SparseInput(inputSize);
+        input.set(active, n);
+        return input;
+    }
+
+    private static byte[] decodeBase64(String text) {
+        try {
+            return Base64.getDecoder().decode(text);
+        } catch (IllegalArgumentException e) {
+            throw new HttpError(400, "Nieprawidłowe dane base64");
+        }
+    }
+
+    private void health(HttpExchange exchange) throws IOException {
+        send(exchange, 200, "{\"status\":\"UP\",\"inputSize\":" + inputSize
+                + ",\"outputSize\":" + model.getOutputSize()
+                + ",\"model\":\"" + model.getClass().getSimpleName() + "\"}");
+    }
+
+    private void metrics(HttpExchange exchange) throws IOException {
+        Metrics m = Metrics.get();
+        StringBuilder sb = new StringBuilder(512).append('{');
+        field(sb, "requests", requests.sum()).append(',');
+        field(sb, "rejected", rejected.sum()).append(',');
+        field(sb, "failures", failures.sum()).append(',');
+        if (batcher != null) {
+            field(sb, "queued", batcher.queued()).append(',');
+            field(sb, "batchWaitMicrosP50", m.getBatchWaitMicrosP50()).append(',');
+            field(sb, "batchWaitMicrosP99", m.getBatchWaitMicrosP99()).append(',');
+        }
+        field(sb, "predictions", m.getPredictions()).append(',');
+        field(sb, "predictMicrosMean", m.getPredictMicrosMean()).append(',');
+        field(sb, "predictMicrosP50", m.getPredictMicrosP50()).append(',');
+        field(sb, "predictMicrosP90", m.getPredictMicrosP90()).append(',');
+        field(sb, "predictMicrosP99", m.getPredictMicrosP99()).append(',');
+        field(sb, "predictMicrosP999", m.getPredictMicrosP999()).append(',');
+        field(sb, "predictMicrosMax", m.getPredictMicrosMax()).append(',');
+        field(sb, "modelLoads", m.getModelLoads()).append(',');
+        field(sb, "lastModelLoadMillis", m.getLastModelLoadMillis());
+        send(exchange, 200, sb.append('}').toString());
+    }
+
+    private static StringBuilder field(StringBuilder sb, String name, Object value) {
+        return sb.append('"').append(name).append("\":").append(value);
+    }
+
+    private String toJson(PredictionResult r) {
+        StringBuilder sb = new StringBuilder(64 + r.probabilities.length * 12);
+        sb.append("{\"index\":").append(r.predictedIndex)
+                .append(",\"symbol\":\"").append(r.predictedIndex < SYMBOLS.length ? SYMBOLS[r.predictedIndex] : "?")
+                .append("\",\"confidence\":");
+        number(sb, r.confidence).append(",\"uncertain\":").append(r.isUncertain)
+                .append(",\"probabilities\":[");
+        for (int k = 0; k < r.probabilities.length; k++) {
+            if (k > 0) {
+                sb.append(',');
+            }
+            number(sb, r.probabilities[k]);
+        }
+        return sb.append("]}").toString();
+    }
+
+    // JSON has no NaN or Infinity; a model with broken weights answers null instead of an unparsable body.
+    private static StringBuilder number(StringBuilder sb, float value) {
+        return Float.isFinite(value) ? sb.append(value) : sb.append("null");
+    }
+
+    private byte[] readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] body = in.readNBytes(maxBody + 1);
+            if (body.length > maxBody) {
+                throw new HttpError(413, "Zbyt duże żądanie");
+            }
+            return body;
+        }
+    }
+
+    private static String contentType(HttpExchange exchange) {
+        String type = exchange.getRequestHeaders().getFirst("Content-Type");
+        if (type == null) {
+            return "application/json";
+        }
+        int semicolon = type.indexOf(';');
+        return (semicolon < 0 ? type : type.substring(0, semicolon)).strip().toLowerCase();
+    }
+
+    private void reject(HttpExchange exchange, int status, String message) throws IOException {
+        rejected.increment();
+        StringBuilder sb = new StringBuilder(32 + message.length()).append("{\"error\":");
+        send(exchange, status, quote(sb, message).append('}').toString());
+    }
+
+    // Appends s as a JSON string literal; error messages may echo client input (Content-Type, values).
+    private static StringBuilder quote(StringBuilder sb, String s) {
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+                }
+            }
+        }
+        return sb.append('"');
+    }
+
+    private static void send(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    // Strict reader for the request schema above: numbers, strings and the structure around them.
+    // Anything else, including trailing content, is a 400 with the position of the problem.
+    private static final class JsonReader {
+        private final String s;
+        private int pos;
+
+        JsonReader(String s) {
+            this.s = s;
+        }
+
+        int peek() {
+            skipWhitespace();
+            return pos < s.length() ? s.charAt(pos) : -1;
+        }
+
+        void expect(char c) {
+            if (peek() != c) {
+                throw error("oczekiwano '" + c + "'");
+            }
+            pos++;
+        }
+
+        void end() {
+            if (peek() != -1) {
+                throw error("nadmiarowe dane");
+            }
+        }
+
+        // An array of exactly count finite numbers.
+        float[] readNumbers(int count) {
+            float[] values = new float[count];
+            int n = 0;
+            expect('[');
+            if (peek() != ']') {
+                do {
+                    float value = readNumber();
+                    if (n == count) {
+                        throw new HttpError(400, "Za dużo wartości, oczekiwano " + count);
+                    }
+                    values[n++] = value;
+                } while (tryConsume(','));
+            }
+            expect(']');
+            if (n != count) {
+                throw new HttpError(400, "Nieprawidłowa liczba wartości: " + n + ", oczekiwano " + count);
+            }
+            return values;
+        }
+
+        // JSON number grammar: -?(0|[1-9][0-9]*)(.[0-9]+)?([eE][+-]?[0-9]+)?
+        float readNumber() {
+            skipWhitespace();
+            int start = pos;
+            tryConsume('-');
+            if (!tryConsume('0') && digits() == 0) {
+                throw error("oczekiwano liczby");
+            }
+            if (tryConsume('.') && digits() == 0) {
+                throw error("oczekiwano cyfry");
+            }
+            if (tryConsume('e') || tryConsume('E')) {
+                if (!tryConsume('+')) {
+                    tryConsume('-');
+                }
+                if (digits() == 0) {
+                    throw error("oczekiwano cyfry");
+                }
+            }
+            String text = s.substring(start, pos);
+            float value = Float.parseFloat(text);
+            if (!Float.isFinite(value)) {
+                throw new HttpError(400, "Nieprawidłowa wartość: " + text);
+            }
+            return value;
+        }
+
+        String readString() {
+            expect('"');
+            StringBuilder sb = new StringBuilder();
+            while (true) {
+                if (pos >= s.length()) {
+                    throw error("niezakończony napis");
+                }
+                char c = s.charAt(pos++);
+                if (c == '"') {
+                    return sb.toString();
+                }
+                if (c < 0x20) {
+                    throw error("znak sterujący w napisie");
+                }
+                if (c != '\\') {
+                    sb.append(c);
+                    continue;
+                }
+                char e = pos < s.length() ? s.charAt(pos++) : 0;
+                switch (e) {
+                    case '"', '\\', '/' -> sb.append(e);
+                    case 'b' -> sb.append('\b');
+                    case 'f' -> sb.append('\f');
+                    case 'n' -> sb.append('\n');
+                    case 'r' -> sb.append('\r');
+                    case 't' -> sb.append('\t');
+                    case 'u' -> {
+                        int code = 0;
+                        for (int i = 0; i < 4; i++) {
+                            int digit = pos < s.length() ? Character.digit(s.charAt(pos++), 16) : -1;
+                            if (digit < 0) {
+                                throw error("nieprawidłowa sekwencja \\u");
+                            }
+                            code = code << 4 | digit;
+                        }
+                        sb.append((char) code);
+                    }
+                    default -> throw error("nieprawidłowa sekwencja ucieczki");
+                }
+            }
+        }
+
+        private boolean tryConsume(char c) {
+            if (pos < s.length() && s.charAt(pos) == c) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        private int digits() {
+            int start = pos;
+            while (pos < s.length() && s.charAt(pos) >= '0' && s.charAt(pos) <= '9') {
+                pos++;
+            }
+            return pos - start;
+        }
+
+        private void skipWhitespace() {
+            while (pos < s.length() && (s.charAt(pos) == ' ' || s.charAt(pos) == '\t'
+                    || s.charAt(pos) == '\n' || s.charAt(pos) == '\r')) {
+                pos++;
+            }
+        }
+
+        private HttpError error(String what) {
+            return new HttpError(400, "Nieprawidłowy JSON na pozycji " + pos + ": " + what);
+        }
+    }
+
+    private static final class HttpError extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+        final int status;
+
+        HttpError(int status, String message) {
+            super(message, null, false, false);
+            this.status = status;
+        }
+    }
+}
@@ -156,6 +156,19 @@ public class AppFrame extends JFrame {
         radioPanel.add(fRadio);
 
         controlPanel.add(radioPanel);
+
+        JPanel livePanel = new JPanel(new FlowLayout(FlowLayout.CENTER, 30, 20));
+        livePanel.setOpaque(false);
+        JLabel liveLabel = new JLabel(" ");
+        liveLabel.setFont(new Font("Arial", Font.BOLD, 24));
+        JCheckBox liveCheck = new JCheckBox("Rozpoznawanie na żywo");
+        liveCheck.setFont(new Font("Arial", Font.BOLD, 18));
+        liveCheck.setOpaque(false);
+        liveCheck.addActionListener(e -> appFunc.setLiveRecognition(liveCheck.isSelected(), liveLabel));
+        livePanel.add(liveCheck);
+        livePanel.add(liveLabel);
+        controlPanel.add(livePanel);
+
         controlPanel.add(Box.createVerticalGlue());
         return controlPanel;
     }
@@ -9,6 +9,7 @@ import com.example.miniMLP.utils.CSVUtils;
 import com.example.miniMLP.utils.ModelUtils;
 
 public class AppFunc {
+    private static final String LIVE_IDLE = "Na żywo: –";
     private final int GRID;
     private JFrame parentFrame;
     private DrawingPanel drawingPanel;
@@ -18,7 +19,11 @@ public class AppFunc {
     private JRadioButton eRadio;
     private JRadioButton lRadio;
     private JRadioButton fRadio;
-    private MLP mlpModel;
+    // Written by the training worker, read by the live recognition thread.
+    private volatile MLP mlpModel;
+    private final CanvasSampler sampler;
+    private LiveRecognizer liveRecognizer;
+    private JLabel liveLabel;
 
     public AppFunc(JFrame parentFrame, DrawingPanel drawingPanel, BufferedImage canvas, Graphics2D g2, float[][] pixels, JRadioButton eRadio, JRadioButton lRadio, JRadioButton fRadio, int grid) {
         this.parentFrame = parentFrame;
@@ -30,6 +35,8 @@ public class AppFunc {
         this.lRadio = lRadio;
         this.fRadio = fRadio;
         this.GRID = grid;
+        this.sampler = new CanvasSampler(canvas, grid);
+        drawingPanel.addStrokeListener(sampler::markDirty);
 
         String modelPath = "mlpModel.bin";
         if (new File(modelPath).exists()) {
@@ -41,9 +48,53 @@ public class AppFunc {
         g2.setColor(Color.WHITE);
         g2.fillRect(0, 0, canvas.getWidth(), canvas.getHeight());
         g2.setColor(Color.BLACK);
+        sampler.markAllDirty();
+        if (liveRecognizer != null) {
+            liveRecognizer.cancel();
+            liveLabel.setText(LIVE_IDLE);
+        }
         drawingPanel.repaint();
     }
 
+    // Recognizes while drawing: strokes trigger debounced recognition on a background thread
+    // and the result is shown in output.
+    public void setLiveRecognition(boolean enabled, JLabel output) {
+        if (liveRecognizer != null) {
+            drawingPanel.removeStrokeListener(liveRecognizer);
+            liveRecognizer.close();
+            liveRecognizer = null;
+        }
+        liveLabel = output;
+        liveLabel.setText(LIVE_IDLE);
+        if (enabled) {
+            liveRecognizer = new LiveRecognizer(this::snapshotPixels, this::describe, liveLabel::setText);
+            drawingPanel.addStrokeListener(liveRecognizer);
+        }
+    }
+
+    private float[][] snapshotPixels() {
+        readPixelsFromCanvas();
+        float[][] copy = new float[GRID][];
+        for (int y = 0; y < GRID; y++) {
+            copy[y] = pixels[y].clone();
+        }
+        return copy;
+    }
+
+    private String describe(float[][] pix) {
+        if (mlpModel == null) {
+            return "Na żywo: brak modelu";
+        }
+        PredictionResult result = classify(pix);
+        if (result == null) {
+            return LIVE_IDLE;
+        }
+        if (result.isUncertain) {
+            return "Na żywo: niepewne";
+        }
+        return "Na żywo: " + indexToSymbol(result.predictedIndex) + " (" + Math.round(result.confidence * 100) + "%)";
+    }
+
     public void recognizeSymbol() {
         if (mlpModel == null) {
             JOptionPane.showMessageDialog(parentFrame, "Najpierw musisz wytrenować model!", "Nie gotowy", JOptionPane.INFORMATION_MESSAGE);
@@ -51,15 +102,26 @@ public class AppFunc {
         }
         readPixelsFromCanvas();
 
-        float[][] centeredPixels = centerImage(pixels, GRID);
-        if (isEmptyDrawing(centeredPixels)) {
+        PredictionResult result = classify(pixels);
+        if (result == null || result.isUncertain) {
             JOptionPane.showMessageDialog(parentFrame, "Modelka nie jest pewna tej postaci.", "Niepewna prognoza", JOptionPane.INFORMATION_MESSAGE);
-            return;
+        } else {
+            String symbol = indexToSymbol(result.predictedIndex);
+            JOptionPane.showMessageDialog(parentFrame, "Model przewiduje: " + symbol, "Wynik przewidywania", JOptionPane.INFORMATION_MESSAGE);
+        }
+    }
+
+    // Returns null for an empty drawing; isUncertain is set when the answer should not be trusted.
+    // Safe to call off the EDT: it only reads pix and the current model.
+    private PredictionResult classify(float[][] pix) {
+        MLP model = mlpModel;
+        float[][] centeredPixels = centerImage(pix, GRID);
+        if (model == null || isEmptyDrawing(centeredPixels)) {
+            return null;
         }
 
         float[] inputVec = convertToFloatVector(centeredPixels);
-        PredictionResult result = mlpModel.predict(inputVec);
-        String symbol = indexToSymbol(result.predictedIndex);
+        PredictionResult result = model.predict(inputVec);
 
         float entropy = 0;
         if (result.probabilities != null) {
@@ -68,12 +130,8 @@ public class AppFunc {
             }
         }
         boolean seemsRandom = entropy > 0.7f;
-        
-        if (result.isUncertain || result.confidence < 0.9f || seemsRandom) {
-            JOptionPane.showMessageDialog(parentFrame, "Modelka nie jest pewna tej postaci.", "Niepewna prognoza", JOptionPane.INFORMATION_MESSAGE);
-        } else {
-            JOptionPane.showMessageDialog(parentFrame, "Model przewiduje: " + symbol, "Wynik przewidywania", JOptionPane.INFORMATION_MESSAGE);
-        }
+        result.isUncertain = result.isUncertain || result.confidence < 0.9f || seemsRandom;
+        return result;
     }
 
     public void saveToCSV(String csvFile) {
@@ -92,10 +150,8 @@ public class AppFunc {
         SwingWorker<Void, Void> worker = new SwingWorker<>() {
             @Override
             protected Void doInBackground() {
-                mlpModel = CSVUtils.trainMLPFromCSV("dataset.csv", GRID);
-                if (mlpModel != null) {
-                    ModelUtils.saveModel(mlpModel, "mlpModel.bin");
-                }
+                // Only the rows added since the last training are learned when possible.
+                mlpModel = CSVUtils.updateMLPFromCSV("dataset.csv", GRID, mlpModel, "mlpModel.bin", "mlpModel.bin.ckpt");
                 return null;
             }
             
@@ -160,25 +216,14 @@ public class AppFunc {
         return count < GRID * GRID * 0.01;
     }
 
+    // Only the cells touched by strokes since the last call are recomputed.
     private void readPixelsFromCanvas() {
-        int cellSize = canvas.getWidth() / GRID;
-        for (int y = 0; y < GRID; y++) {
-            for (int x = 0; x < GRID; x++) {
-                int blackCount = 0;
-                for (int dy = 0; dy < cellSize; dy++) {
-                    for (int dx = 0; dx < cellSize; dx++) {
-                        int px = x * cellSize + dx;
-                        int py = y * cellSize + dy;
-                        int color = canvas.getRGB(px, py) & 0xFF;
-                        if (color < 128) {
-                            blackCount++;
-                        }
-                    }
-                }
-                double ratio = blackCount / (double)(cellSize * cellSize);
-                pixels[y][x] = ratio > 0.2f ? 1.0f : 0.0f;
-            }
-        }
+        sampler.sample(pixels);
+    }
+
+    // Downsamples the whole canvas to grid x grid cells: a cell is 1 when more than 20% of its pixels are dark.
+    public static void readPixelsFromCanvas(BufferedImage canvas, float[][] pixels, int grid) {
+        new CanvasSampler(canvas, grid).sample(pixels);
     }
 
     private static float[][] centerImage(float[][] pix, int grid) {
@@ -0,0 +1,111 @@
+package com.example.miniMLP.ui;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBufferByte;
+import java.awt.image.WritableRaster;
+import java.util.Arrays;
+
+// Downsamples the drawing canvas to a grid x grid matrix: a cell is 1 when more than 20% of its
+// pixels are dark. Gray canvases are read straight from their DataBufferByte through a lookup
+// table built from the image's color model, so the result is the same as thresholding getRGB.
+// Strokes mark the cells they touched as dirty and sample() only recomputes those cells.
+// Not thread-safe: use it on the thread that draws on the canvas.
+public final class CanvasSampler {
+    private final BufferedImage canvas;
+    private final int grid;
+    private final int cellSize;
+    private final boolean[] dirty;
+    private boolean anyDirty;
+    // Direct access to the gray bytes; data is null for canvases of other types.
+    private final byte[] data;
+    private final int offset;
+    private final int stride;
+    private final boolean[] dark = new boolean[256];
+
+    public CanvasSampler(BufferedImage canvas, int grid) {
+        this.canvas = canvas;
+        this.grid = grid;
+        this.cellSize = canvas.getWidth() / grid;
+        this.dirty = new boolean[grid * grid];
+
+        WritableRaster raster = canvas.getRaster();
+        if (canvas.getType() == BufferedImage.TYPE_BYTE_GRAY
+                && raster.getDataBuffer() instanceof DataBufferByte buffer
+                && raster.getSampleModel() instanceof ComponentSampleModel sm) {
+            this.data = buffer.getData();
+            this.stride = sm.getScanlineStride();
+            this.offset = buffer.getOffset() + sm.getOffset(-raster.getSampleModelTranslateX(), -raster.getSampleModelTranslateY());
+            for (int v = 0; v < 256; v++) {
+                dark[v] = (canvas.getColorModel().getRGB(v) & 0xFF) < 128;
+            }
+        } else {
+            this.data = null;
+            this.stride = 0;
+            this.offset = 0;
+        }
+        markAllDirty();
+    }
+
+    // Marks the cells overlapping bounds (canvas pixels) for recomputation.
+    public void markDirty(Rectangle bounds) {
+        int x0 = Math.max(0, bounds.x / cellSize);
+        int y0 = Math.max(0, bounds.y / cellSize);
+        int x1 = Math.min(grid - 1, (bounds.x + bounds.width - 1) / cellSize);
+        int y1 = Math.min(grid - 1, (bounds.y + bounds.height - 1) / cellSize);
+        for (int y = y0; y <= y1; y++) {
+            for (int x = x0; x <= x1; x++) {
+                dirty[y * grid + x] = true;
+                anyDirty = true;
+            }
+        }
+    }
+
+    public void markAllDirty() {
+        Arrays.fill(dirty, true);
+        anyDirty = true;
+    }
+
+    // Brings pixels up to date with the canvas, recomputing only dirty cells.
+    // pixels must be the same matrix on every call, since clean cells are left as they are.
+    public void sample(float[][] pixels) {
+        if (!anyDirty) {
+            return;
+        }
+        for (int y = 0; y < grid; y++) {
+            for (int x = 0; x < grid; x++) {
+                int c = y * grid + x;
+                if (dirty[c]) {
+                    pixels[y][x] = sampleCell(x, y);
+                    dirty[c] = false;
+                }
+            }
+        }
+        anyDirty = false;
+    }
+
+    private float sampleCell(int x, int y) {
+        int blackCount = 0;
+        if (data != null) {
+            int row = offset + y * cellSize * stride + x * cellSize;
+            for (int dy = 0; dy < cellSize; dy++, row += stride) {
+                for (int dx = 0; dx < cellSize; dx++) {
+                    if (dark[data[row + dx] & 0xFF]) {
+                        blackCount++;
+                    }
+                }
+            }
+        } else {
+            for (int dy = 0; dy < cellSize; dy++) {
+                for (int dx = 0; dx < cellSize; dx++) {
+                    if ((canvas.getRGB(x * cellSize + dx, y * cellSize + dy) & 0xFF) < 128) {
+                        blackCount++;
+                    }
+                }
+            }
+        }
+        double ratio = blackCount / (double) (cellSize * cellSize);
+        return ratio > 0.2f ? 1.0f : 0.0f;
+    }
+}
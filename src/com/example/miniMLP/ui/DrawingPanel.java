@@ -4,12 +4,20 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
 import java.awt.image.BufferedImage;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 public class DrawingPanel extends JPanel {
+    // Told about every stroke with the canvas area it may have changed.
+    public interface StrokeListener {
+        void strokeDrawn(Rectangle bounds);
+    }
+
     private BufferedImage canvas;
     private Graphics2D g2;
     private Point lastPoint;
     private int drawSize = 13;
+    private final transient List<StrokeListener> strokeListeners = new CopyOnWriteArrayList<>();
 
     public DrawingPanel(BufferedImage canvas) {
         this.canvas = canvas;
@@ -35,15 +43,34 @@ public class DrawingPanel extends JPanel {
         addMouseMotionListener(mouseAdapter);
     }
     
+    public void addStrokeListener(StrokeListener listener) {
+        strokeListeners.add(listener);
+    }
+
+    public void removeStrokeListener(StrokeListener listener) {
+        strokeListeners.remove(listener);
+    }
+
     private void drawPoint(Point p) {
         g2.fillOval(p.x - drawSize/2, p.y - drawSize/2, drawSize, drawSize);
-        repaint();
+        strokeDrawn(p, p);
     }
     
     private void drawLine(Point from, Point to) {
         g2.setStroke(new BasicStroke(drawSize, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
         g2.drawLine(from.x, from.y, to.x, to.y);
-        repaint();
+        strokeDrawn(from, to);
+    }
+
+    // Bounding box of the segment widened by the pen radius, plus a pixel for antialiasing.
+    private void strokeDrawn(Point from, Point to) {
+        int pad = drawSize / 2 + 2;
+        Rectangle bounds = new Rectangle(Math.min(from.x, to.x) - pad, Math.min(from.y, to.y) - pad,
+                Math.abs(from.x - to.x) + 2 * pad + 1, Math.abs(from.y - to.y) + 2 * pad + 1);
+        for (StrokeListener l : strokeListeners) {
+            l.strokeDrawn(bounds);
+        }
+        repaint(bounds);
     }
 
     @Override
@@ -0,0 +1,114 @@
+package com.example.miniMLP.ui;
+
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import java.awt.Rectangle;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+// Recognizes the drawing while it is being drawn without ever running the model on the EDT.
+// Strokes (re)start a debounce timer; when it fires the canvas is sampled on the EDT (a few
+// microseconds with CanvasSampler) and the snapshot is handed to a background thread. Snapshots
+// that arrive while the model is busy replace each other, so only the newest one is scored.
+// Results are published with invokeLater and dropped if cancel() was called in the meantime.
+public class LiveRecognizer implements DrawingPanel.StrokeListener, AutoCloseable {
+    private static final int DEBOUNCE_MS = 120;
+    // A continuous stroke still gets a result at least this often.
+    private static final long MAX_DELAY_MS = 400;
+
+    private final Supplier<float[][]> snapshot;
+    private final Function<float[][], String> recognizer;
+    private final Consumer<String> output;
+    private final Timer debounce;
+    private final ExecutorService executor;
+    private final AtomicReference<Snapshot> latest = new AtomicReference<>();
+    private final AtomicBoolean scoring = new AtomicBoolean();
+    private volatile long epoch;
+    private long pendingSince;
+
+    // snapshot runs on the EDT and must return a copy; recognizer runs on the background thread;
+    // output is called on the EDT.
+    public LiveRecognizer(Supplier<float[][]> snapshot, Function<float[][], String> recognizer, Consumer<String> output) {
+        this.snapshot = snapshot;
+        this.recognizer = recognizer;
+        this.output = output;
+        this.debounce = new Timer(DEBOUNCE_MS, e -> submit());
+        this.debounce.setRepeats(false);
+        this.executor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "live-recognition");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @Override
+    public void strokeDrawn(Rectangle bounds) {
+        if (!debounce.isRunning()) {
+            pendingSince = System.currentTimeMillis();
+            debounce.start();
+        } else if (System.currentTimeMillis() - pendingSince < MAX_DELAY_MS) {
+            debounce.restart();
+        }
+    }
+
+    // Forgets pending work, e.g. after the canvas was cleared. Must be called on the EDT.
+    public void cancel() {
+        epoch++;
+        debounce.stop();
+        latest.set(null);
+    }
+
+    private void submit() {
+        latest.set(new Snapshot(epoch, snapshot.get()));
+        if (scoring.compareAndSet(false, true)) {
+            executor.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        do {
+            Snapshot s;
+            while ((s = latest.getAndSet(null)) != null) {
+                if (s.epoch != epoch) {
+                    continue;
+                }
+                String text;
+                try {
+                    text = recognizer.apply(s.pixels);
+                } catch (RuntimeException e) {
+                    e.printStackTrace();
+                    continue;
+                }
+                long scored = s.epoch;
+                SwingUtilities.invokeLater(() -> {
+                    if (scored == epoch) {
+                        output.accept(text);
+                    }
+                });
+            }
+            scoring.set(false);
+            // A snapshot may have arrived after the last getAndSet but before the flag was cleared.
+        } while (latest.get() != null && scoring.compareAndSet(false, true));
+    }
+
+    @Override
+    public void close() {
+        cancel();
+        executor.shutdownNow();
+    }
+
+    private static final class Snapshot {
+        final long epoch;
+        final float[][] pixels;
+
+        Snapshot(long epoch, float[][] pixels) {
+            this.epoch = epoch;
+            this.pixels = pixels;
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package com.example.miniMLP.utils;
+
+import com.example.miniMLP.metrics.Metrics;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// Streaming reader for "label,p0,p1,..." dataset lines. The file is read in large blocks straight
+// into a heap chunk and decoded from there into reusable pixel/bit buffers, so next() allocates
+// nothing for well-formed lines.
+// Malformed lines are reported with their line number and skipped.
+public class CSVSampleReader implements Closeable {
+    private static final int BUFFER_SIZE = 1 << 22;
+
+    private final FileChannel channel;
+    private final ByteBuffer buf;
+    private final byte[] chunk;
+    private int chunkPos;
+    private int chunkLimit;
+    private final int inputSize;
+    private final float[] pixels;
+    private final long[] bits;
+    private final byte[] labelBytes = new byte[32];
+    private int labelLen;
+    private int label;
+    private long lineNumber;
+    private long lineStart;
+    private long position;
+    private int fields;
+    private boolean badValue;
+
+    public CSVSampleReader(String csvFile, int inputSize) throws IOException {
+        this(csvFile, inputSize, 0L, 0L);
+    }
+
+    // Starts reading at byteOffset, which must be the start of a line; firstLine is the number of lines before it.
+    public CSVSampleReader(String csvFile, int inputSize, long byteOffset, long firstLine) throws IOException {
+        this.channel = FileChannel.open(Path.of(csvFile), StandardOpenOption.READ);
+        this.channel.position(byteOffset);
+        this.chunk = new byte[BUFFER_SIZE];
+        this.buf = ByteBuffer.wrap(chunk);
+        this.inputSize = inputSize;
+        this.pixels = new float[inputSize];
+        this.bits = new long[(inputSize + 63) >>> 6];
+        this.position = byteOffset;
+        this.lineNumber = firstLine;
+    }
+
+    public boolean next() throws IOException {
+        while (true) {
+            int c = read();
+            if (c < 0) {
+                return false;
+            }
+            lineNumber++;
+            lineStart = position - 1;
+            if (parseLine(c)) {
+                return true;
+            }
+        }
+    }
+
+    public int label() {
+        return label;
+    }
+
+    public float[] pixels() {
+        return pixels;
+    }
+
+    // The current sample packed one bit per non-zero pixel, in PackedDataset layout.
+    public long[] bits() {
+        return bits;
+    }
+
+    public long lineNumber() {
+        return lineNumber;
+    }
+
+    // Byte offset of the start of the current sample's line.
+    public long lineStart() {
+        return lineStart;
+    }
+
+    // Byte offset just past everything consumed so far.
+    public long position() {
+        return position;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private int read() throws IOException {
+        if (chunkPos == chunkLimit && !fill()) {
+            return -1;
+        }
+        position++;
+        return chunk[chunkPos++] & 0xFF;
+    }
+
+    private boolean fill() throws IOException {
+        buf.clear();
+        int n = channel.read(buf);
+        if (n <= 0) {
+            return false;
+        }
+        chunkPos = 0;
+        chunkLimit = n;
+        return true;
+    }
+
+    private boolean parseLine(int c) throws IOException {
+        labelLen = 0;
+        while (c >= 0 && c != ',' && c != '\n') {
+            if (c != '\r' && c != ' ' && c != '\t' && labelLen < labelBytes.length) {
+                labelBytes[labelLen++] = (byte) c;
+            }
+            c = read();
+        }
+        if (c != ',') {
+            if (labelLen > 0) {
+                Metrics.warning("Nieprawidłowa liczba pól w linii " + lineNumber + ": 1");
+            }
+            return false;
+        }
+
+        Arrays.fill(bits, 0L);
+        fields = 0;
+        badValue = false;
+        do {
+            c = parseField();
+        } while (c == ',');
+
+        if (fields != inputSize) {
+            Metrics.warning("Nieprawidłowa liczba pól w linii " + lineNumber + ": " + (fields + 1));
+            return false;
+        }
+        if (badValue) {
+            Metrics.warning("Nieprawidłowa wartość piksela w linii " + lineNumber);
+            return false;
+        }
+        label = decodeLabel();
+        if (label < 0) {
+            Metrics.warning("Nieprawidłowa etykieta w linii " + lineNumber + ": " + new String(labelBytes, 0, labelLen).toLowerCase());
+            return false;
+        }
+        return true;
+    }
+
+    // Parses one numeric field and returns the byte that terminated it (',', '\n' or -1).
+    private int parseField() throws IOException {
+        // Fast path for the "0," / "1," fields that make up almost all of a binary export.
+        if (chunkLimit - chunkPos >= 2) {
+            byte d = chunk[chunkPos];
+            byte t = chunk[chunkPos + 1];
+            if ((d == '0' || d == '1') && (t == ',' || t == '\n')) {
+                chunkPos += 2;
+                position += 2;
+                if (fields < inputSize) {
+                    pixels[fields] = d - '0';
+                    if (d == '1') {
+                        bits[fields >>> 6] |= 1L << fields;
+                    }
+                }
+                fields++;
+                return t;
+            }
+        }
+        float value = 0f;
+        float scale = 1f;
+        boolean fraction = false;
+        boolean negative = false;
+        boolean digits = false;
+        int c = read();
+        while (c == ' ' || c == '\t') {
+            c = read();
+        }
+        if (c == '-') {
+            negative = true;
+            c = read();
+        }
+        while (c >= 0 && c != ',' && c != '\n') {
+            if (c >= '0' && c <= '9') {
+                digits = true;
+                if (fraction) {
+                    scale *= 0.1f;
+                    value += (c - '0') * scale;
+                } else {
+                    value = value * 10f + (c - '0');
+                }
+            } else if (c == '.' && !fraction) {
+                fraction = true;
+            } else if (c != '\r' && c != ' ' && c != '\t') {
+                badValue = true;
+            }
+            c = read();
+        }
+        if (!digits) {
+            badValue = true;
+        }
+        if (fields < inputSize) {
+            float v = negative ? -value : value;
+            pixels[fields] = v;
+            if (v > 0f) {
+                bits[fields >>> 6] |= 1L << fields;
+            }
+        }
+        fields++;
+        return c;
+    }
+
+    private int decodeLabel() {
+        if (labelLen != 1) {
+            return -1;
+        }
+        switch (labelBytes[0]) {
+            case 'e': case 'E': return 0;
+            case 'l': case 'L': return 1;
+            case 'f': case 'F': return 2;
+            default: return -1;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.miniMLP.utils;
+
+import com.example.miniMLP.ml.PackedDataset;
+import com.example.miniMLP.ml.SampleSource;
+
+import java.io.IOException;
+
+public class CSVSampleSource implements SampleSource {
+    private final String csvFile;
+    private final int inputSize;
+    private CSVSampleReader reader;
+
+    public CSVSampleSource(String csvFile, int grid) {
+        this.csvFile = csvFile;
+        this.inputSize = grid * grid;
+    }
+
+    @Override
+    public int inputSize() {
+        return inputSize;
+    }
+
+    @Override
+    public void reset() throws IOException {
+        close();
+        reader = new CSVSampleReader(csvFile, inputSize);
+    }
+
+    @Override
+    public int read(PackedDataset chunk, int max) throws IOException {
+        int n = 0;
+        while (n < max && reader.next()) {
+            chunk.add(reader.bits(), 0, reader.label());
+            n++;
+        }
+        return n;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (reader != null) {
+            reader.close();
+            reader = null;
+        }
+    }
+}
@@ -1,13 +1,39 @@
 package com.example.miniMLP.utils;
 
+import com.example.miniMLP.metrics.Metrics;
+import com.example.miniMLP.ml.AdamOptimizer;
+import com.example.miniMLP.ml.EvaluationEngine;
+import com.example.miniMLP.ml.EvaluationReport;
+import com.example.miniMLP.ml.LearningRateSchedule;
 import com.example.miniMLP.ml.MLP;
-import com.example.miniMLP.ml.PredictionResult;
+import com.example.miniMLP.ml.Optimizer;
+import com.example.miniMLP.ml.PackedDataset;
+import com.example.miniMLP.ml.ParallelTrainer;
+import com.example.miniMLP.ml.Predictor;
+import com.example.miniMLP.ml.QuantizedMLP;
+import com.example.miniMLP.ml.SampleSource;
+import com.example.miniMLP.ml.StreamingTrainer;
+import com.example.miniMLP.ml.TrainingController;
+import com.example.miniMLP.ml.TrainingReport;
+import com.example.miniMLP.ml.TrainingState;
 
 import java.io.*;
-import java.util.ArrayList;
-import java.util.List;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
 
 public class CSVUtils {
+    // Fine-tuning mixes every new row with this many replayed old ones (at least MIN_REPLAY in total).
+    private static final int REPLAY_PER_NEW_ROW = 4;
+    private static final int MIN_REPLAY = 64;
+    private static final int FINE_TUNE_EPOCHS = 20;
+    // Full training, shared by defaultController() and the streaming trainer.
+    private static final int DEFAULT_EPOCHS = 200;
+    private static final int DEFAULT_BATCH = 32;
+    private static final float DEFAULT_LEARNING_RATE = 0.003f;
+    // Threads each mini-batch is split across; -DminiMLP.train.threads=1 trains on the calling thread only.
+    private static final int TRAIN_THREADS = Integer.getInteger("miniMLP.train.threads",
+            Runtime.getRuntime().availableProcessors());
 
     public static void savePixelsToCSV(String label, float[][] pix, int grid, String csvFile) {
         float[][] centered = centerImage(pix, grid);
@@ -39,7 +65,7 @@ public class CSVUtils {
         return binaryPixels;
     }
 
-    private static float[][] centerImage(float[][] pix, int grid) {
+    public static float[][] centerImage(float[][] pix, int grid) {
         int minX = grid, minY = grid, maxX = 0, maxY = 0;
         boolean hasContent = false;
         for (int y = 0; y < grid; y++)
@@ -69,115 +95,281 @@ public class CSVUtils {
         return centered;
     }
 
+    // Trains until the validation loss stops improving and keeps the best weights; 20% of each class is held out.
     public static MLP trainMLPFromCSV(String csvFile, int grid) {
-        List<float[]> inputList = new ArrayList<>();
-        List<float[]> targetList = new ArrayList<>();
-        try (BufferedReader br = new BufferedReader(new FileReader(csvFile))) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                String[] parts = line.split(",");
-                if (parts.length != 1 + (grid * grid)) {
-                    continue;
-                }
-                String labelStr = parts[0].trim().toLowerCase();
+        return trainMLPFromCSV(csvFile, grid, defaultController());
+    }
 
-                float[] inVec = new float[grid * grid];
-                for (int i = 0; i < grid * grid; i++) {
-                    inVec[i] = Float.parseFloat(parts[i + 1]);
-                }
+    // Same as trainMLPFromCSV, but saves a checkpoint every 5 epochs or 30 s. If checkpointFile
+    // already holds one (e.g. the previous run was killed), training continues from it.
+    // The checkpoint is deleted once training finishes.
+    public static MLP trainMLPFromCSV(String csvFile, int grid, String checkpointFile) {
+        MLP mlp = Files.exists(Path.of(checkpointFile))
+                ? resumeMLPFromCSV(csvFile, grid, checkpointFile)
+                : null;
+        if (mlp == null) {
+            PackedDataset data = loadTrainingData(csvFile, grid);
+            if (data == null) {
+                return null;
+            }
+            mlp = new MLP(grid * grid, 128, 3);
+            try (Checkpointer checkpointer = new Checkpointer(checkpointFile)) {
+                Metrics.message(defaultController().checkpoints(checkpointer, 5, 30_000).train(mlp, data).toString());
+            }
+        }
+        try {
+            Files.deleteIfExists(Path.of(checkpointFile));
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return mlp;
+    }
 
-                int classIndex = symbolToIndex(labelStr);
-                if (classIndex < 0 || classIndex >= 3) {
-                    continue;
-                }
-                float[] targetVec = new float[3];
-                targetVec[classIndex] = 1.0f;
+    // Brings modelFile up to date with csvFile and saves it. When current is the model stored there and
+    // the watermark next to it shows that rows were only appended since, current is fine-tuned on the new
+    // rows; otherwise a fresh model is trained on the whole file. current itself is never modified.
+    public static MLP updateMLPFromCSV(String csvFile, int grid, MLP current, String modelFile, String checkpointFile) {
+        TrainingWatermark seen = current == null ? null : TrainingWatermark.load(modelFile);
+        MLP mlp = null;
+        if (seen != null && seen.matches(modelFile, csvFile, grid * grid)) {
+            mlp = fineTuneMLPFromCSV(csvFile, grid, current, seen);
+            if (mlp == current) {
+                return current;
+            }
+        }
+        if (mlp == null) {
+            mlp = trainMLPFromCSV(csvFile, grid, checkpointFile);
+            seen = mlp == null ? null : scanWatermark(csvFile, grid * grid);
+        }
+        if (mlp != null) {
+            ModelUtils.saveModel(mlp, modelFile);
+            if (seen != null) {
+                seen.save(modelFile);
+            }
+        }
+        return mlp;
+    }
 
-                inputList.add(inVec);
-                targetList.add(targetVec);
+    // Fine-tunes a copy of mlp on the rows appended after seen, each mixed with REPLAY_PER_NEW_ROW randomly
+    // chosen earlier rows so the old classes are not forgotten; the cost grows with the number of new rows only.
+    // seen is advanced past the new rows. Returns mlp itself when nothing was appended, null on a read error.
+    public static MLP fineTuneMLPFromCSV(String csvFile, int grid, MLP mlp, TrainingWatermark seen) {
+        int inputSize = grid * grid;
+        PackedDataset fresh = new PackedDataset(inputSize);
+        long lines;
+        long end;
+        try (CSVSampleReader reader = new CSVSampleReader(csvFile, inputSize, seen.offset, seen.lines)) {
+            while (reader.next()) {
+                fresh.add(reader.bits(), 0, reader.label());
             }
+            lines = reader.lineNumber();
+            end = reader.position();
         } catch (IOException e) {
             e.printStackTrace();
             return null;
         }
+        if (fresh.size() == 0) {
+            Metrics.message("Brak nowych danych, model jest aktualny.");
+            return mlp;
+        }
 
-        if (inputList.isEmpty()) {
-            System.err.println("Brak danych szkoleniowych!");
+        Random rnd = new Random(seen.offset);
+        int replayCount = Math.max(MIN_REPLAY, fresh.size() * REPLAY_PER_NEW_ROW);
+        PackedDataset replay = seen.rows == 0
+                ? new PackedDataset(inputSize, 1)
+                : DatasetCache.sample(csvFile, grid, seen.rows, replayCount, rnd);
+        if (replay == null) {
             return null;
         }
+        PackedDataset data = new PackedDataset(inputSize, fresh.size() + replay.size());
+        long[] record = new long[data.words()];
+        for (PackedDataset part : new PackedDataset[]{fresh, replay}) {
+            for (int r = 0; r < part.size(); r++) {
+                part.pack(r, record);
+                data.add(record, 0, part.label(r));
+            }
+        }
 
-        float[][] inputs = inputList.toArray(new float[0][]);
-        float[][] targets = targetList.toArray(new float[0][]);
-        MLP mlp = new MLP(grid * grid, 128, 3);
-        mlp.train(inputs, targets, 600, 0.01f);
+        Metrics.message("Dostrajanie modelu: nowe próbki: " + fresh.size() + ", powtórzone: " + replay.size());
+        MLP tuned = mlp.copy();
+        TrainingController controller = new TrainingController(FINE_TUNE_EPOCHS, 32, new AdamOptimizer(0.001f))
+                .validationSplit(0f)
+                .patience(0, 0f)
+                .seed(seen.offset)
+                .parallel(TRAIN_THREADS, ParallelTrainer.Mode.SYNCHRONOUS);
+        Metrics.message(controller.train(tuned, data).toString());
+        try {
+            seen.advance(csvFile, seen.rows + fresh.size(), lines, end);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+        return tuned;
+    }
+
+    // Watermark covering every row currently in csvFile.
+    private static TrainingWatermark scanWatermark(String csvFile, int inputSize) {
+        try (CSVSampleReader reader = new CSVSampleReader(csvFile, inputSize)) {
+            int rows = 0;
+            while (reader.next()) {
+                rows++;
+            }
+            return TrainingWatermark.of(csvFile, inputSize, rows, reader.lineNumber(), reader.position());
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    // Continues the run saved in checkpointFile; returns null if there is no usable checkpoint.
+    public static MLP resumeMLPFromCSV(String csvFile, int grid, String checkpointFile) {
+        TrainingState state;
+        try {
+            state = Checkpointer.load(checkpointFile);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+        PackedDataset data = loadTrainingData(csvFile, grid);
+        if (data == null) {
+            return null;
+        }
+        Metrics.message("Wznawianie treningu od epoki " + state.epoch);
+        MLP mlp = MLP.zeros(state.inputSize, state.hiddenSize, state.outputSize);
+        try (Checkpointer checkpointer = new Checkpointer(checkpointFile)) {
+            Metrics.message(defaultController().checkpoints(checkpointer, 5, 30_000).resume(mlp, data, state).toString());
+        }
         return mlp;
     }
 
-    private static int symbolToIndex(String s) {
-        s = s.trim().toLowerCase();
-        return switch (s) {
-            case "e" -> 0;
-            case "l" -> 1;
-            case "f" -> 2;
-            default -> -1;
-        };
+    private static TrainingController defaultController() {
+        return new TrainingController(DEFAULT_EPOCHS, DEFAULT_BATCH, new AdamOptimizer(DEFAULT_LEARNING_RATE))
+                .validationSplit(0.2f)
+                .patience(10, 1e-4f)
+                .schedule(LearningRateSchedule.cosine(DEFAULT_EPOCHS, 0f))
+                .parallel(TRAIN_THREADS, ParallelTrainer.Mode.SYNCHRONOUS);
     }
 
-    public static float testMLPFromCSV(String csvFile, MLP mlp, int grid) {
-        int total = 0;
-        int correct = 0;
-        try (BufferedReader br = new BufferedReader(new FileReader(csvFile))) {
-            String line;
-            int lineIndex = 0;
-            while ((line = br.readLine()) != null) {
-                lineIndex++;
-                String[] parts = line.split(",");
-                if (parts.length != 1 + grid * grid) {
-                    continue;
-                }
+    private static PackedDataset loadTrainingData(String csvFile, int grid) {
+        PackedDataset data = DatasetCache.load(csvFile, grid);
+        if (data != null && data.size() == 0) {
+            Metrics.warning("Brak danych szkoleniowych!");
+            return null;
+        }
+        return data;
+    }
 
-                String trueLabel = parts[0].trim().toLowerCase();
-                int trueIndex = symbolToIndex(trueLabel);
-                if (trueIndex < 0) {
-                    System.out.println("Nieprawidłowa etykieta w linii " + lineIndex + ": " + trueLabel);
-                    continue;
-                }
+    // Fixed number of epochs on the whole file, no holdout.
+    public static MLP trainMLPFromCSV(String csvFile, int grid, Optimizer optimizer, int epochs) {
+        return trainMLPFromCSV(csvFile, grid, new TrainingController(epochs, 32, optimizer).validationSplit(0f).patience(0, 0f));
+    }
 
-                float[] inVec = new float[grid * grid];
-                for (int i = 0; i < grid * grid; i++) {
-                    inVec[i] = Float.parseFloat(parts[i + 1]);
-                }
-                PredictionResult result = mlp.predict(inVec);
-                total++;
-                if (result.predictedIndex == trueIndex) {
-                    correct++;
-                }
+    public static MLP trainMLPFromCSV(String csvFile, int grid, TrainingController controller) {
+        PackedDataset data = loadTrainingData(csvFile, grid);
+        if (data == null) {
+            return null;
+        }
+
+        MLP mlp = new MLP(grid * grid, 128, 3);
+        TrainingReport report = controller.train(mlp, data);
+        Metrics.message(report.toString());
+        return mlp;
+    }
+
+    // Out-of-core variant: samples are streamed from the binary cache in chunks instead of being held in memory.
+    // Same optimizer and schedule as defaultController(); there is no holdout, so it always runs every epoch.
+    public static MLP trainMLPFromCSVStreaming(String csvFile, int grid, int chunkSize) {
+        try (SampleSource source = DatasetCache.openSource(csvFile, grid)) {
+            MLP mlp = new MLP(grid * grid, 128, 3);
+            new StreamingTrainer(chunkSize).train(mlp, source, DEFAULT_EPOCHS, DEFAULT_BATCH,
+                    new AdamOptimizer(DEFAULT_LEARNING_RATE), LearningRateSchedule.cosine(DEFAULT_EPOCHS, 0f));
+            return mlp;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
 
-                String predictedLabel = indexToSymbol(result.predictedIndex);
-                System.out.printf("Rysunek %d: prawdziwy=%s, przewidywany=%s, pewność=%.2f%n", lineIndex, trueLabel, predictedLabel, result.confidence);
+    public static PackedDataset loadPackedDataset(String csvFile, int grid) {
+        PackedDataset data = new PackedDataset(grid * grid);
+        try (CSVSampleReader reader = new CSVSampleReader(csvFile, grid * grid)) {
+            while (reader.next()) {
+                data.add(reader.bits(), 0, reader.label());
             }
         } catch (IOException e) {
             e.printStackTrace();
-            return 0f;
+            return null;
         }
+        return data;
+    }
 
-        if (total == 0) {
-            System.out.println("Brak danych dla testu.");
+    public static float testMLPFromCSV(String csvFile, MLP mlp, int grid) {
+        EvaluationReport report = evaluateFromCSV(csvFile, mlp, grid,
+                Metrics.hasListeners() ? Metrics::testSample : null);
+        if (report == null) {
             return 0f;
         }
+        if (report.skipped > 0) {
+            Metrics.warning("Pominięto wierszy z etykietą spoza modelu: " + report.skipped);
+        }
+        Metrics.evaluation(report.total, report.correct);
+        return report.accuracy;
+    }
 
-        float accuracy = (float) correct / total;
-        System.out.printf("Razem testów: %d, Poprawnych: %d%n", total, correct);
-        System.out.printf("Dokładność: %.2f%n", accuracy);
-        return accuracy;
+    // Scores every row of csvFile in parallel; sink (may be null) sees each row from a worker thread.
+    // Returns null when there is nothing to evaluate.
+    public static EvaluationReport evaluateFromCSV(String csvFile, Predictor model, int grid, EvaluationEngine.RowSink sink) {
+        PackedDataset data = DatasetCache.load(csvFile, grid);
+        if (data == null) {
+            return null;
+        }
+        if (data.size() == 0) {
+            Metrics.message("Brak danych dla testu.");
+            return null;
+        }
+        try (EvaluationEngine engine = new EvaluationEngine()) {
+            return engine.evaluate(model, data, sink);
+        }
     }
     
-    private static String indexToSymbol(int idx) {
-        switch (idx) {
-            case 0: return "e";
-            case 1: return "l";
-            case 2: return "f";
-            default: return "?";
+    // Compares the fp32 model with its int8 quantized version on the same data; returns the accuracy change.
+    public static float quantizationReport(String csvFile, MLP mlp, int grid) {
+        PackedDataset data = DatasetCache.load(csvFile, grid);
+        if (data == null || data.size() == 0) {
+            Metrics.message("Brak danych dla testu.");
+            return 0f;
+        }
+        QuantizedMLP quantized = QuantizedMLP.quantize(mlp);
+
+        int total = data.size();
+        float[] input = new float[data.inputSize()];
+        float[] probs = new float[mlp.getOutputSize()];
+        float[] probsQ = new float[mlp.getOutputSize()];
+        int correct = 0, correctQ = 0, agree = 0;
+        float maxDiff = 0f;
+        for (int r = 0; r < total; r++) {
+            data.unpack(r, input);
+            int best = mlp.predictInto(input, probs);
+            int bestQ = quantized.predictInto(input, probsQ);
+            if (best == data.label(r)) {
+                correct++;
+            }
+            if (bestQ == data.label(r)) {
+                correctQ++;
+            }
+            if (best == bestQ) {
+                agree++;
+            }
+            for (int k = 0; k < probs.length; k++) {
+                maxDiff = Math.max(maxDiff, Math.abs(probs[k] - probsQ[k]));
+            }
         }
+
+        float accuracy = (float) correct / total;
+        float accuracyQ = (float) correctQ / total;
+        Metrics.message(String.format("Dokładność fp32: %.4f, int8: %.4f, różnica: %+.4f", accuracy, accuracyQ, accuracyQ - accuracy));
+        Metrics.message(String.format("Zgodne predykcje: %d/%d, maks. różnica prawdopodobieństwa: %.4f", agree, total, maxDiff));
+        Metrics.message(String.format("Rozmiar wag fp32: %d B, int8: %d B", (long) mlp.parameterCount() * Float.BYTES, quantized.parameterBytes()));
+        return accuracyQ - accuracy;
     }
 }
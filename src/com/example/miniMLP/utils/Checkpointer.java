@@ -0,0 +1,165 @@
+package com.example.miniMLP.utils;
+
+import com.example.miniMLP.ml.TrainingState;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+// Writes TrainingState snapshots on a background thread so the training loop never waits for the disk.
+// If snapshots arrive faster than they can be written, only the newest pending one is kept.
+// Each write goes to <file>.tmp and is renamed over <file>, so a crash never leaves a torn checkpoint.
+// Little-endian layout:
+//   header (64 bytes): magic "MLPC", version, inputSize, hiddenSize, outputSize, epoch,
+//                      payload length, CRC32 of the payload
+//   payload: split seed, best score, best epoch, epochs since best, parameters, best parameters,
+//            4 x epoch floats of history (train loss, val loss, val accuracy, lr),
+//            optimizer class name, RNG state and optimizer state as length-prefixed byte blocks
+public class Checkpointer implements Consumer<TrainingState>, AutoCloseable {
+    private static final int MAGIC = 0x43504C4D; // "MLPC"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+
+    private final Path file;
+    private final ExecutorService writer;
+    private final AtomicReference<TrainingState> pending = new AtomicReference<>();
+
+    public Checkpointer(String filename) {
+        this.file = Path.of(filename);
+        this.writer = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "checkpoint-writer");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @Override
+    public void accept(TrainingState state) {
+        if (pending.getAndSet(state) == null) {
+            writer.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        TrainingState state = pending.getAndSet(null);
+        if (state != null) {
+            try {
+                write(state, file);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    // Waits for the last submitted checkpoint to reach the disk.
+    @Override
+    public void close() {
+        writer.shutdown();
+        try {
+            writer.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public static void write(TrainingState s, Path target) throws IOException {
+        byte[] optimizer = s.optimizer.getBytes(StandardCharsets.UTF_8);
+        int epochs = s.trainLoss.length;
+        int payload = 8 + 4 + 4 + 4
+                + (s.parameters.length + s.bestParameters.length + 4 * epochs) * Float.BYTES
+                + 4 + optimizer.length + 4 + s.rngState.length + 4 + s.optimizerState.length;
+        ByteBuffer buf = ByteBuffer.allocate(HEADER_SIZE + payload).order(ByteOrder.LITTLE_ENDIAN);
+        buf.position(HEADER_SIZE);
+        buf.putLong(s.splitSeed).putFloat(s.bestScore).putInt(s.bestEpoch).putInt(s.sinceBest);
+        buf.asFloatBuffer().put(s.parameters).put(s.bestParameters)
+                .put(s.trainLoss).put(s.validationLoss).put(s.validationAccuracy).put(s.learningRate);
+        buf.position(buf.position() + (s.parameters.length + s.bestParameters.length + 4 * epochs) * Float.BYTES);
+        buf.putInt(optimizer.length).put(optimizer);
+        buf.putInt(s.rngState.length).put(s.rngState);
+        buf.putInt(s.optimizerState.length).put(s.optimizerState);
+
+        CRC32 crc = new CRC32();
+        crc.update(buf.array(), HEADER_SIZE, payload);
+        buf.position(0);
+        buf.putInt(MAGIC).putInt(VERSION).putInt(s.inputSize).putInt(s.hiddenSize).putInt(s.outputSize)
+                .putInt(s.epoch).putLong(payload).putLong(crc.getValue());
+        buf.position(0);
+
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buf.hasRemaining()) {
+                ch.write(buf);
+            }
+            ch.force(true);
+        }
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public static TrainingState load(String filename) throws IOException {
+        try (FileChannel ch = FileChannel.open(Path.of(filename), StandardOpenOption.READ)) {
+            MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            buf.order(ByteOrder.LITTLE_ENDIAN);
+            if (ch.size() < HEADER_SIZE || buf.getInt(0) != MAGIC || buf.getInt(4) != VERSION) {
+                throw new IOException("Nieobsługiwany plik checkpointu: " + filename);
+            }
+            long payload = buf.getLong(24);
+            if (buf.capacity() != HEADER_SIZE + payload) {
+                throw new IOException("Uszkodzony plik checkpointu: " + filename);
+            }
+            CRC32 crc = new CRC32();
+            crc.update(buf.slice(HEADER_SIZE, (int) payload));
+            if (crc.getValue() != buf.getLong(32)) {
+                throw new IOException("Nieprawidłowa suma kontrolna checkpointu: " + filename);
+            }
+
+            TrainingState s = new TrainingState();
+            s.inputSize = buf.getInt(8);
+            s.hiddenSize = buf.getInt(12);
+            s.outputSize = buf.getInt(16);
+            s.epoch = buf.getInt(20);
+            int params = s.inputSize * s.hiddenSize + s.hiddenSize + s.hiddenSize * s.outputSize + s.outputSize;
+            buf.position(HEADER_SIZE);
+            s.splitSeed = buf.getLong();
+            s.bestScore = buf.getFloat();
+            s.bestEpoch = buf.getInt();
+            s.sinceBest = buf.getInt();
+            s.parameters = readFloats(buf, params);
+            s.bestParameters = readFloats(buf, params);
+            s.trainLoss = readFloats(buf, s.epoch);
+            s.validationLoss = readFloats(buf, s.epoch);
+            s.validationAccuracy = readFloats(buf, s.epoch);
+            s.learningRate = readFloats(buf, s.epoch);
+            s.optimizer = new String(readBytes(buf), StandardCharsets.UTF_8);
+            s.rngState = readBytes(buf);
+            s.optimizerState = readBytes(buf);
+            return s;
+        }
+    }
+
+    private static float[] readFloats(ByteBuffer buf, int count) {
+        float[] out = new float[count];
+        buf.asFloatBuffer().get(out);
+        buf.position(buf.position() + count * Float.BYTES);
+        return out;
+    }
+
+    private static byte[] readBytes(ByteBuffer buf) {
+        byte[] out = new byte[buf.getInt()];
+        buf.get(out);
+        return out;
+    }
+}
@@ -0,0 +1,365 @@
+package com.example.miniMLP.utils;
+
+import com.example.miniMLP.metrics.Metrics;
+import com.example.miniMLP.ml.PackedDataset;
+import com.example.miniMLP.ml.SampleSource;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+// Compiled form of a dataset CSV kept next to it as <csv>.bin. Little-endian layout:
+//   header (64 bytes): magic, version, inputSize, words, count, stride,
+//                      source length, source mtime, CRC32 of the source up to its length, source lines
+//   records (stride bytes each): label byte, 7 bytes padding, words x long of packed pixels
+// Rows are only ever appended to the CSV, so when it grew past the cached length and still starts
+// with the bytes the cache was built from, only the new lines are parsed and appended to the cache.
+public class DatasetCache {
+    private static final int MAGIC = 0x44504C4D; // "MLPD"
+    private static final int VERSION = 3;
+    private static final int HEADER_SIZE = 64;
+    private static final int IO_BUFFER = 1 << 20;
+    // A single mapping is limited to 2 GB, so the records are mapped in windows of at most this size.
+    private static final int SEGMENT_SIZE = 1 << 30;
+    private static final byte[] RECORD_PADDING = new byte[7];
+
+    public static String cacheFileFor(String csvFile) {
+        return csvFile + ".bin";
+    }
+
+    // Returns the dataset from the cache, rebuilding the cache first if the CSV changed since it was written.
+    public static PackedDataset load(String csvFile, int grid) {
+        try {
+            Path cache = ensure(Path.of(csvFile), grid * grid);
+            return cache == null ? null : open(cache);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    // Random sample of count distinct records among the first limit ones. Only the drawn records
+    // are decoded, so the cost does not depend on the size of the dataset.
+    public static PackedDataset sample(String csvFile, int grid, int limit, int count, Random rnd) {
+        try {
+            Path cache = ensure(Path.of(csvFile), grid * grid);
+            if (cache == null) {
+                return null;
+            }
+            try (FileChannel ch = FileChannel.open(cache, StandardOpenOption.READ)) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+                ch.read(header, 0);
+                int words = header.getInt(12);
+                int stride = header.getInt(20);
+                int perSegment = SEGMENT_SIZE / stride;
+                MappedByteBuffer[] segments = map(ch, header.getInt(16), stride);
+                int available = Math.min(limit, header.getInt(16));
+                int n = Math.min(count, available);
+                PackedDataset data = new PackedDataset(grid * grid, Math.max(1, n));
+                long[] record = new long[words];
+                // Floyd's algorithm: n distinct indices without materialising all of them.
+                Set<Integer> picked = new HashSet<>(n * 2);
+                for (int j = available - n; j < available; j++) {
+                    int r = rnd.nextInt(j + 1);
+                    if (!picked.add(r)) {
+                        picked.add(r = j);
+                    }
+                    MappedByteBuffer buf = segments[r / perSegment];
+                    int pos = (r % perSegment) * stride;
+                    for (int w = 0; w < words; w++) {
+                        record[w] = buf.getLong(pos + 8 + w * 8);
+                    }
+                    data.add(record, 0, buf.get(pos));
+                }
+                return data;
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    // Streams the cached records without loading them all; the cache is (re)built first if needed.
+    public static SampleSource openSource(String csvFile, int grid) throws IOException {
+        Path cache = ensure(Path.of(csvFile), grid * grid);
+        if (cache == null) {
+            throw new FileNotFoundException(csvFile);
+        }
+        return new CachedSource(cache, grid * grid);
+    }
+
+    private static Path ensure(Path csv, int inputSize) throws IOException {
+        if (!Files.exists(csv)) {
+            Metrics.warning("Nie znaleziono pliku: " + csv);
+            return null;
+        }
+        Path cache = Path.of(cacheFileFor(csv.toString()));
+        ByteBuffer header = Files.exists(cache) ? readHeader(cache, inputSize) : null;
+        if (header != null) {
+            long length = Files.size(csv);
+            long cached = header.getLong(24);
+            long modified = Files.getLastModifiedTime(csv).toMillis();
+            if (length == cached && header.getLong(32) == modified) {
+                return cache;
+            }
+            // The file was touched, so everything the cache was built from is checksummed before it is trusted.
+            if (length == cached || length > cached && endsWithNewline(csv, cached)) {
+                CRC32 crc = checksum(csv, new CRC32(), 0, cached);
+                if (crc.getValue() == header.getLong(40)) {
+                    if (length == cached) {
+                        touch(cache, header, modified);
+                    } else {
+                        append(csv, cache, header, crc);
+                    }
+                    return cache;
+                }
+            }
+        }
+        build(csv, cache, inputSize);
+        return cache;
+    }
+
+    // Returns null when the cache is not a complete one for inputSize.
+    private static ByteBuffer readHeader(Path cache, int inputSize) throws IOException {
+        try (FileChannel ch = FileChannel.open(cache, StandardOpenOption.READ)) {
+            if (ch.size() < HEADER_SIZE) {
+                return null;
+            }
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            ch.read(header, 0);
+            if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION || header.getInt(8) != inputSize
+                    || header.getInt(12) != PackedDataset.wordsFor(inputSize)
+                    || ch.size() != HEADER_SIZE + (long) header.getInt(16) * header.getInt(20)) {
+                return null;
+            }
+            return header;
+        }
+    }
+
+    // Appending is only safe when the cached part ended on a line boundary.
+    private static boolean endsWithNewline(Path csv, long length) throws IOException {
+        if (length == 0) {
+            return true;
+        }
+        ByteBuffer last = ByteBuffer.allocate(1);
+        try (FileChannel ch = FileChannel.open(csv, StandardOpenOption.READ)) {
+            return ch.read(last, length - 1) == 1 && last.get(0) == '\n';
+        }
+    }
+
+    // Same content, new mtime: recorded so the next run does not checksum the source again.
+    private static void touch(Path cache, ByteBuffer header, long modified) throws IOException {
+        try (FileChannel ch = FileChannel.open(cache, StandardOpenOption.WRITE)) {
+            header.putLong(32, modified).position(0);
+            ch.write(header, 0);
+        }
+    }
+
+    // Continues crc over bytes [start, end) of file.
+    static CRC32 checksum(Path file, CRC32 crc, long start, long end) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocateDirect(IO_BUFFER);
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            for (long pos = start; pos < end; ) {
+                buf.clear().limit((int) Math.min(IO_BUFFER, end - pos));
+                int read = ch.read(buf, pos);
+                if (read < 0) {
+                    throw new EOFException(file.toString());
+                }
+                buf.flip();
+                crc.update(buf);
+                pos += read;
+            }
+        }
+        return crc;
+    }
+
+    private static PackedDataset open(Path cache) throws IOException {
+        try (FileChannel ch = FileChannel.open(cache, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            ch.read(header, 0);
+            int inputSize = header.getInt(8);
+            int words = header.getInt(12);
+            int count = header.getInt(16);
+            int stride = header.getInt(20);
+
+            PackedDataset data = new PackedDataset(inputSize, count);
+            long[] record = new long[words];
+            for (MappedByteBuffer buf : map(ch, count, stride)) {
+                for (int pos = 0; pos < buf.limit(); pos += stride) {
+                    for (int w = 0; w < words; w++) {
+                        record[w] = buf.getLong(pos + 8 + w * 8);
+                    }
+                    data.add(record, 0, buf.get(pos));
+                }
+            }
+            return data;
+        }
+    }
+
+    // Maps the count records in windows of whole records, so offsets within each stay in int range.
+    private static MappedByteBuffer[] map(FileChannel ch, int count, int stride) throws IOException {
+        int perSegment = SEGMENT_SIZE / stride;
+        MappedByteBuffer[] segments = new MappedByteBuffer[Math.max(1, (count + perSegment - 1) / perSegment)];
+        for (int s = 0; s < segments.length; s++) {
+            long first = (long) s * perSegment;
+            long records = Math.min(perSegment, count - first);
+            segments[s] = ch.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE + first * stride, records * stride);
+            segments[s].order(ByteOrder.LITTLE_ENDIAN);
+        }
+        return segments;
+    }
+
+    // Streams CSV -> records into a temp file, then patches the count into the header and renames.
+    private static void build(Path csv, Path cache, int inputSize) throws IOException {
+        long modified = Files.getLastModifiedTime(csv).toMillis();
+        int words = PackedDataset.wordsFor(inputSize);
+        int stride = 8 + words * 8;
+
+        Path tmp = cache.resolveSibling(cache.getFileName() + ".tmp");
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+             CSVSampleReader reader = new CSVSampleReader(csv.toString(), inputSize)) {
+            ch.position(HEADER_SIZE);
+            int count = writeRecords(reader, ch, stride);
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION).putInt(inputSize).putInt(words)
+                    .putInt(count).putInt(stride);
+            writeSource(ch, header, csv, reader, modified, new CRC32());
+        }
+        Files.move(tmp, cache, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Parses only the lines past the cached length and appends their records in place. The header
+    // is rewritten last, so a crash in between leaves a size mismatch and the next ensure() rebuilds.
+    // crc covers the cached part of the CSV and is continued over the appended lines.
+    private static void append(Path csv, Path cache, ByteBuffer header, CRC32 crc) throws IOException {
+        long modified = Files.getLastModifiedTime(csv).toMillis();
+        int count = header.getInt(16);
+        int stride = header.getInt(20);
+        try (FileChannel ch = FileChannel.open(cache, StandardOpenOption.READ, StandardOpenOption.WRITE);
+             CSVSampleReader reader = new CSVSampleReader(csv.toString(), header.getInt(8),
+                     header.getLong(24), header.getLong(48))) {
+            ch.position(HEADER_SIZE + (long) count * stride);
+            header.putInt(16, count + writeRecords(reader, ch, stride));
+            ch.force(false);
+            writeSource(ch, header, csv, reader, modified, crc);
+        }
+    }
+
+    // Writes every remaining sample of reader at the channel's position; returns how many there were.
+    private static int writeRecords(CSVSampleReader reader, FileChannel ch, int stride) throws IOException {
+        ByteBuffer out = ByteBuffer.allocateDirect(IO_BUFFER).order(ByteOrder.LITTLE_ENDIAN);
+        int count = 0;
+        while (reader.next()) {
+            if (out.remaining() < stride) {
+                flush(ch, out);
+            }
+            out.put((byte) reader.label());
+            out.put(RECORD_PADDING);
+            for (long word : reader.bits()) {
+                out.putLong(word);
+            }
+            count++;
+        }
+        flush(ch, out);
+        return count;
+    }
+
+    // Fills in what the cache was built from (up to where reader stopped) and writes the header.
+    // crc covers the source up to the length still in the header, which is 0 for a new cache.
+    private static void writeSource(FileChannel ch, ByteBuffer header, Path csv, CSVSampleReader reader,
+                                    long modified, CRC32 crc) throws IOException {
+        long length = reader.position();
+        long crcValue = checksum(csv, crc, header.getLong(24), length).getValue();
+        header.putLong(24, length).putLong(32, modified)
+                .putLong(40, crcValue).putLong(48, reader.lineNumber());
+        header.position(0);
+        ch.write(header, 0);
+    }
+
+    private static void flush(FileChannel ch, ByteBuffer out) throws IOException {
+        out.flip();
+        while (out.hasRemaining()) {
+            ch.write(out);
+        }
+        out.clear();
+    }
+
+    private static final class CachedSource implements SampleSource {
+        private final Path cache;
+        private final int inputSize;
+        private final int words;
+        private final long[] record;
+        private final ByteBuffer buf = ByteBuffer.allocateDirect(IO_BUFFER).order(ByteOrder.LITTLE_ENDIAN);
+        private FileChannel channel;
+        private int stride;
+        private long remaining;
+
+        CachedSource(Path cache, int inputSize) {
+            this.cache = cache;
+            this.inputSize = inputSize;
+            this.words = PackedDataset.wordsFor(inputSize);
+            this.record = new long[words];
+        }
+
+        @Override
+        public int inputSize() {
+            return inputSize;
+        }
+
+        @Override
+        public void reset() throws IOException {
+            close();
+            channel = FileChannel.open(cache, StandardOpenOption.READ);
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            channel.read(header, 0);
+            remaining = header.getInt(16);
+            stride = header.getInt(20);
+            channel.position(HEADER_SIZE);
+            buf.clear().flip();
+        }
+
+        @Override
+        public int read(PackedDataset chunk, int max) throws IOException {
+            int n = 0;
+            while (n < max && remaining > 0) {
+                if (buf.remaining() < stride) {
+                    buf.compact();
+                    channel.read(buf);
+                    buf.flip();
+                    if (buf.remaining() < stride) {
+                        throw new EOFException("Uszkodzony plik " + cache);
+                    }
+                }
+                int pos = buf.position();
+                for (int w = 0; w < words; w++) {
+                    record[w] = buf.getLong(pos + 8 + w * 8);
+                }
+                chunk.add(record, 0, buf.get(pos));
+                buf.position(pos + stride);
+                remaining--;
+                n++;
+            }
+            return n;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (channel != null) {
+                channel.close();
+                channel = null;
+            }
+        }
+    }
+}
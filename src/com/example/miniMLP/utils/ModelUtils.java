@@ -1,27 +1,153 @@
 package com.example.miniMLP.utils;
 
+import com.example.miniMLP.metrics.Metrics;
+import com.example.miniMLP.ml.HalfFormat;
+import com.example.miniMLP.ml.HalfMLP;
 import com.example.miniMLP.ml.MLP;
+import com.example.miniMLP.ml.Predictor;
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
 
+// Models are saved in a compact little-endian format:
+//   header (64 bytes): magic "MLPM", version, dtype, inputSize, hiddenSize, outputSize,
+//                      payload length in bytes, CRC32 of the payload
+//   payload: w1 [input][hidden], b1, w2 [hidden][output], b2 as contiguous blocks of
+//            fp32 (dtype 0), fp16 (dtype 1) or bf16 (dtype 2) values
+// Files written by the old ObjectOutputStream-based saveModel are still loaded.
 public class ModelUtils {
+    private static final int MAGIC = 0x4D504C4D; // "MLPM"
+    private static final int VERSION = 1;
+    private static final int DTYPE_F32 = 0;
+    private static final int DTYPE_F16 = 1;
+    private static final int DTYPE_BF16 = 2;
+    private static final int HEADER_SIZE = 64;
+
     public static void saveModel(MLP mlp, String filename) {
-        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(filename))) {
-            oos.writeObject(mlp);
-            System.out.println("Model został pomyślnie zapisany!");
+        int payload = mlp.parameterCount() * Float.BYTES;
+        ByteBuffer buf = ByteBuffer.allocate(HEADER_SIZE + payload).order(ByteOrder.LITTLE_ENDIAN);
+        buf.position(HEADER_SIZE);
+        mlp.writeParameters(buf.asFloatBuffer());
+        write(buf, DTYPE_F32, mlp.getInputSize(), mlp.getHiddenSize(), mlp.getOutputSize(), filename);
+    }
+
+    // Half-precision file: half the size of the fp32 one, loadable with loadPredictor or widened by loadModel.
+    public static void saveModel(HalfMLP mlp, String filename) {
+        int payload = mlp.parameterCount() * Short.BYTES;
+        ByteBuffer buf = ByteBuffer.allocate(HEADER_SIZE + payload).order(ByteOrder.LITTLE_ENDIAN);
+        buf.position(HEADER_SIZE);
+        mlp.writeParameters(buf.asShortBuffer());
+        int dtype = mlp.getFormat() == HalfFormat.BF16 ? DTYPE_BF16 : DTYPE_F16;
+        write(buf, dtype, mlp.getInputSize(), mlp.getHiddenSize(), mlp.getOutputSize(), filename);
+    }
+
+    private static void write(ByteBuffer buf, int dtype, int inputSize, int hiddenSize, int outputSize, String filename) {
+        int payload = buf.capacity() - HEADER_SIZE;
+        CRC32 crc = new CRC32();
+        crc.update(buf.array(), HEADER_SIZE, payload);
+        buf.position(0);
+        buf.putInt(MAGIC).putInt(VERSION).putInt(dtype)
+                .putInt(inputSize).putInt(hiddenSize).putInt(outputSize)
+                .putLong(payload).putLong(crc.getValue());
+        buf.position(0);
+
+        Path target = Path.of(filename);
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        try {
+            try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (buf.hasRemaining()) {
+                    ch.write(buf);
+                }
+            }
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Metrics.message("Model został pomyślnie zapisany!");
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
 
+    // Always returns a trainable fp32 model; half-precision files are widened.
     public static MLP loadModel(String filename) {
-        try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(filename))) {
-            MLP mlp = (MLP) ois.readObject();
-            System.out.println("Model został pomyślnie załadowany!");
+        Predictor p = loadPredictor(filename);
+        return p instanceof HalfMLP half ? half.toMLP() : (MLP) p;
+    }
+
+    // Returns the model in the precision it was stored in: MLP for fp32 files, HalfMLP for fp16/bf16.
+    public static Predictor loadPredictor(String filename) {
+        long started = System.nanoTime();
+        try (FileChannel ch = FileChannel.open(Path.of(filename), StandardOpenOption.READ)) {
+            MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            buf.order(ByteOrder.LITTLE_ENDIAN);
+            Predictor mlp = ch.size() >= HEADER_SIZE && buf.getInt(0) == MAGIC
+                    ? readBinary(buf, filename)
+                    : readSerialized(filename);
+            if (mlp != null) {
+                Metrics.modelLoad(System.nanoTime() - started);
+                Metrics.message("Model został pomyślnie załadowany!");
+            }
             return mlp;
         } catch (IOException | ClassNotFoundException e) {
             e.printStackTrace();
         }
         return null;
     }
-}
 
+    // Payload CRC32 from the header of a binary model file; -1 for legacy or unreadable files.
+    public static long checksum(String filename) {
+        try (FileChannel ch = FileChannel.open(Path.of(filename), StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            if (ch.size() < HEADER_SIZE || ch.read(header, 0) < HEADER_SIZE || header.getInt(0) != MAGIC) {
+                return -1L;
+            }
+            return header.getLong(32);
+        } catch (IOException e) {
+            return -1L;
+        }
+    }
+
+    private static Predictor readBinary(ByteBuffer buf, String filename) throws IOException {
+        int version = buf.getInt(4);
+        int dtype = buf.getInt(8);
+        if (version != VERSION || (dtype != DTYPE_F32 && dtype != DTYPE_F16 && dtype != DTYPE_BF16)) {
+            throw new IOException("Nieobsługiwany format modelu " + filename + ": wersja " + version + ", typ " + dtype);
+        }
+        int inputSize = buf.getInt(12);
+        int hiddenSize = buf.getInt(16);
+        int outputSize = buf.getInt(20);
+        long payload = buf.getLong(24);
+        long count = (long) inputSize * hiddenSize + hiddenSize + (long) hiddenSize * outputSize + outputSize;
+        int elementSize = dtype == DTYPE_F32 ? Float.BYTES : Short.BYTES;
+        if (payload != count * elementSize || buf.capacity() != HEADER_SIZE + payload) {
+            throw new IOException("Uszkodzony plik modelu: " + filename);
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(buf.slice(HEADER_SIZE, (int) payload));
+        if (crc.getValue() != buf.getLong(32)) {
+            throw new IOException("Nieprawidłowa suma kontrolna modelu: " + filename);
+        }
+        ByteBuffer params = buf.slice(HEADER_SIZE, (int) payload).order(ByteOrder.LITTLE_ENDIAN);
+        if (dtype == DTYPE_F32) {
+            MLP mlp = MLP.zeros(inputSize, hiddenSize, outputSize);
+            mlp.readParameters(params.asFloatBuffer());
+            return mlp;
+        }
+        HalfMLP mlp = HalfMLP.zeros(inputSize, hiddenSize, outputSize, dtype == DTYPE_BF16 ? HalfFormat.BF16 : HalfFormat.FP16);
+        mlp.readParameters(params.asShortBuffer());
+        return mlp;
+    }
+
+    private static MLP readSerialized(String filename) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream ois = new ObjectInputStream(new BufferedInputStream(new FileInputStream(filename)))) {
+            return (MLP) ois.readObject();
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.miniMLP.utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+// How much of the dataset CSV a saved model has been trained on, kept next to it as <model>.seen.
+// Rows are only ever appended to the CSV, so everything past offset is new to the model.
+// Little-endian layout (48 bytes): magic "MLPW", version, inputSize, rows, lines, offset,
+//   CRC32 of the CSV up to offset, payload CRC32 of the model file
+public class TrainingWatermark {
+    private static final int MAGIC = 0x574C504D; // "MLPW"
+    // Version 1 only checksummed the last 64 KB; such sidecars are not trusted and the model is retrained.
+    private static final int VERSION = 2;
+    private static final int SIZE = 48;
+
+    public int inputSize;
+    public int rows;
+    public long lines;
+    public long offset;
+    public long prefixCrc;
+    public long modelCrc;
+
+    public static String fileFor(String modelFile) {
+        return modelFile + ".seen";
+    }
+
+    // Watermark for the first rows samples of csvFile, which take lines lines and end at byte offset.
+    public static TrainingWatermark of(String csvFile, int inputSize, int rows, long lines, long offset) throws IOException {
+        TrainingWatermark w = new TrainingWatermark();
+        w.inputSize = inputSize;
+        w.advance(csvFile, rows, lines, offset);
+        return w;
+    }
+
+    public void advance(String csvFile, int rows, long lines, long offset) throws IOException {
+        this.rows = rows;
+        this.lines = lines;
+        this.offset = offset;
+        this.prefixCrc = DatasetCache.checksum(Path.of(csvFile), new CRC32(), 0, offset).getValue();
+    }
+
+    // Returns null when there is no sidecar or it cannot be read.
+    public static TrainingWatermark load(String modelFile) {
+        Path file = Path.of(fileFor(modelFile));
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buf = ByteBuffer.allocate(SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            if (ch.size() != SIZE || ch.read(buf, 0) != SIZE || buf.getInt(0) != MAGIC || buf.getInt(4) != VERSION) {
+                return null;
+            }
+            TrainingWatermark w = new TrainingWatermark();
+            w.inputSize = buf.getInt(8);
+            w.rows = buf.getInt(12);
+            w.lines = buf.getLong(16);
+            w.offset = buf.getLong(24);
+            w.prefixCrc = buf.getLong(32);
+            w.modelCrc = buf.getLong(40);
+            return w;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    // Binds the watermark to the model file as it is now on disk and writes the sidecar.
+    public void save(String modelFile) {
+        modelCrc = ModelUtils.checksum(modelFile);
+        ByteBuffer buf = ByteBuffer.allocate(SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        buf.putInt(MAGIC).putInt(VERSION).putInt(inputSize).putInt(rows)
+                .putLong(lines).putLong(offset).putLong(prefixCrc).putLong(modelCrc);
+        buf.position(0);
+        Path target = Path.of(fileFor(modelFile));
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        try {
+            try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (buf.hasRemaining()) {
+                    ch.write(buf);
+                }
+            }
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // True when modelFile is the model this watermark was saved with and csvFile still starts with the rows it has seen.
+    // Every byte up to offset is checksummed, so an edit anywhere in the seen rows forces a full retrain.
+    public boolean matches(String modelFile, String csvFile, int inputSize) {
+        if (this.inputSize != inputSize || modelCrc < 0 || modelCrc != ModelUtils.checksum(modelFile)) {
+            return false;
+        }
+        try {
+            Path csv = Path.of(csvFile);
+            return Files.size(csv) >= offset
+                    && DatasetCache.checksum(csv, new CRC32(), 0, offset).getValue() == prefixCrc;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.miniMLP.ml;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Steady-state training and inference must not allocate. Allocation is measured with the
+// per-thread counter; the JIT needs a while before vector code stops boxing, so a few rounds
+// are allowed to reach zero.
+class AllocationTest {
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private static final int CALLS = 10_000;
+    private static final int ROUNDS = 20;
+    // Covers the counter itself, not a single float[] per call.
+    private static final long SLACK_BYTES = 1024;
+
+    private final MLP mlp = new MLP(784, 128, 3, 42);
+    private final float[] input = new float[784];
+    private final float[] target = new float[3];
+    private final float[] probs = new float[3];
+
+    AllocationTest() {
+        Random rnd = new Random(7);
+        for (int i = 0; i < input.length; i++) {
+            input[i] = rnd.nextInt(5) == 0 ? 1f : 0f;
+        }
+        target[1] = 1f;
+    }
+
+    @Test
+    void trainOnExampleAllocatesNothing() {
+        assertSteadyStateFree(() -> mlp.trainOnExample(input, target, 1e-4f));
+    }
+
+    @Test
+    void predictIntoAllocatesNothing() {
+        assertSteadyStateFree(() -> mlp.predictInto(input, probs));
+    }
+
+    @Test
+    void sessionPredictAllocatesNothing() {
+        InferenceSession session = mlp.newSession();
+        assertSteadyStateFree(() -> session.predict(input));
+    }
+
+    private static void assertSteadyStateFree(Runnable call) {
+        long bytes = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS && bytes > SLACK_BYTES; round++) {
+            long before = THREADS.getCurrentThreadAllocatedBytes();
+            for (int i = 0; i < CALLS; i++) {
+                call.run();
+            }
+            bytes = THREADS.getCurrentThreadAllocatedBytes() - before;
+        }
+        assertTrue(bytes <= SLACK_BYTES, bytes + " B allocated in " + CALLS + " calls");
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.miniMLP.ml;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class EvaluationEngineTest {
+    @Test
+    void rowsWithUnknownLabelsAreSkippedAndCounted() {
+        PackedDataset data = new PackedDataset(16);
+        float[] pixels = new float[16];
+        for (int r = 0; r < 90; r++) {
+            pixels[r % 16] = 1f;
+            data.add(pixels, r % 3);
+        }
+        AtomicInteger seen = new AtomicInteger();
+        EvaluationReport report;
+        // Two classes only, so every row labelled 2 has nothing to be compared with.
+        try (EvaluationEngine engine = new EvaluationEngine(2, 7)) {
+            report = engine.evaluate(new MLP(16, 8, 2, 1), data, (row, expected, predicted, confidence) -> {
+                assertEquals(row % 3, expected);
+                seen.incrementAndGet();
+            });
+        }
+
+        assertEquals(30, report.skipped);
+        assertEquals(60, report.total);
+        assertEquals(60, seen.get());
+    }
+}
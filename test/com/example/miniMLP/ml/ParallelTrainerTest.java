@@ -0,0 +1,104 @@
+package com.example.miniMLP.ml;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.FloatBuffer;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ParallelTrainerTest {
+    private static final int INPUT = 64;
+
+    @Test
+    void synchronousModeIsDeterministicForFixedSeedAndWorkers() {
+        PackedDataset data = dataset(300, 1);
+        float[] first = parameters(train(data, 3));
+        float[] second = parameters(train(data, 3));
+        assertArrayEquals(first, second);
+    }
+
+    @Test
+    void oneWorkerMatchesTheSingleThreadedPass() {
+        PackedDataset data = dataset(100, 2);
+        MLP single = new MLP(INPUT, 16, 3, 7);
+        MLP parallel = single.copy();
+        int[] order = shuffled(data.size(), 3);
+        BatchWorkspace.Loader loader = (w, o, start, count) -> w.load(data, o, start, count);
+
+        float singleLoss = single.trainPass(order, order.length, new AdamOptimizer(0.01f),
+                new BatchWorkspace(16, INPUT, 16, 3), new Gradients(INPUT, 16, 3), loader);
+        float parallelLoss;
+        try (ParallelTrainer trainer = new ParallelTrainer(1, ParallelTrainer.Mode.SYNCHRONOUS, 1)) {
+            parallelLoss = trainer.trainPass(parallel, order, order.length, 16, new AdamOptimizer(0.01f), loader);
+        }
+
+        assertEquals(singleLoss, parallelLoss);
+        assertArrayEquals(parameters(single), parameters(parallel));
+    }
+
+    @Test
+    void shardedBatchesComputeTheSameSteps() {
+        PackedDataset data = dataset(300, 4);
+        float[] single = parameters(train(data, 1));
+        float[] sharded = parameters(train(data, 4));
+        // Only the summation order of the per-shard gradients differs.
+        for (int i = 0; i < single.length; i++) {
+            assertEquals(single[i], sharded[i], 1e-3f, "parameter " + i);
+        }
+    }
+
+    @Test
+    void hogwildModeLearns() {
+        PackedDataset data = dataset(300, 5);
+        MLP mlp = new MLP(INPUT, 16, 3, 7);
+        float before = mlp.crossEntropy(data);
+        try (ParallelTrainer trainer = new ParallelTrainer(3, ParallelTrainer.Mode.HOGWILD, 1)) {
+            trainer.train(mlp, data, 5, 8, new SgdOptimizer(0.05f));
+        }
+        assertTrue(mlp.crossEntropy(data) < before);
+    }
+
+    private static MLP train(PackedDataset data, int workers) {
+        MLP mlp = new MLP(INPUT, 16, 3, 7);
+        new TrainingController(3, 32, new AdamOptimizer(0.01f))
+                .validationSplit(0.2f)
+                .patience(0, 0f)
+                .seed(11)
+                .parallel(workers, ParallelTrainer.Mode.SYNCHRONOUS)
+                .train(mlp, data);
+        return mlp;
+    }
+
+    private static int[] shuffled(int n, long seed) {
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        MLP.shuffle(order, new Random(seed));
+        return order;
+    }
+
+    // Each class lights up its own third of the pixels, plus noise.
+    private static PackedDataset dataset(int rows, long seed) {
+        Random rnd = new Random(seed);
+        PackedDataset data = new PackedDataset(INPUT);
+        float[] pixels = new float[INPUT];
+        for (int r = 0; r < rows; r++) {
+            int label = r % 3;
+            for (int i = 0; i < INPUT; i++) {
+                pixels[i] = rnd.nextFloat() < (i * 3 / INPUT == label ? 0.6f : 0.15f) ? 1f : 0f;
+            }
+            data.add(pixels, label);
+        }
+        return data;
+    }
+
+    private static float[] parameters(MLP mlp) {
+        float[] params = new float[mlp.parameterCount()];
+        mlp.writeParameters(FloatBuffer.wrap(params));
+        return params;
+    }
+}
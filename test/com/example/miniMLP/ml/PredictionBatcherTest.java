@@ -0,0 +1,62 @@
+package com.example.miniMLP.ml;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PredictionBatcherTest {
+    private final MLP mlp = new MLP(784, 128, 3, 3);
+
+    @Test
+    void batchedResultsMatchDirectPredictions() throws Exception {
+        float[][] inputs = inputs(500, 1);
+        List<CompletableFuture<PredictionResult>> results = new ArrayList<>();
+        ExecutorService clients = Executors.newFixedThreadPool(4);
+        try (PredictionBatcher batcher = new PredictionBatcher(mlp, 16, 500, 64)) {
+            // Several submitting threads, so batches of mixed sizes are formed.
+            List<Future<CompletableFuture<PredictionResult>>> submitted = new ArrayList<>();
+            for (float[] input : inputs) {
+                submitted.add(clients.submit(() -> batcher.submit(input)));
+            }
+            for (Future<CompletableFuture<PredictionResult>> f : submitted) {
+                results.add(f.get());
+            }
+            for (int i = 0; i < inputs.length; i++) {
+                PredictionResult expected = mlp.predict(inputs[i]);
+                PredictionResult actual = results.get(i).get();
+                assertEquals(expected.predictedIndex, actual.predictedIndex, "row " + i);
+                assertArrayEquals(expected.probabilities, actual.probabilities, "row " + i);
+            }
+        } finally {
+            clients.shutdown();
+        }
+    }
+
+    @Test
+    void requestsAfterCloseAreRefused() {
+        PredictionBatcher batcher = new PredictionBatcher(mlp);
+        batcher.close();
+        assertThrows(IllegalStateException.class, () -> batcher.trySubmit(inputs(1, 2)[0]));
+    }
+
+    private static float[][] inputs(int count, long seed) {
+        Random rnd = new Random(seed);
+        float[][] inputs = new float[count][784];
+        for (float[] input : inputs) {
+            for (int i = 0; i < input.length; i++) {
+                input[i] = rnd.nextInt(4) == 0 ? 1f : 0f;
+            }
+        }
+        return inputs;
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.miniMLP.ml;
+
+import com.example.miniMLP.utils.Checkpointer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.FloatBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TrainingControllerTest {
+    private static final int EPOCHS = 8;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void resumingFromACheckpointIsBitIdentical() throws IOException {
+        PackedDataset data = dataset(240, 64, 11);
+        List<TrainingState> checkpoints = new ArrayList<>();
+        MLP uninterrupted = new MLP(64, 16, 3, 5);
+        TrainingReport full = controller().checkpoints(checkpoints::add, 3, 0).train(uninterrupted, data);
+        assertTrue(checkpoints.size() >= 2);
+
+        for (TrainingState checkpoint : checkpoints) {
+            // Through the file, as after a crash.
+            Path file = dir.resolve("epoch-" + checkpoint.epoch + ".ckpt");
+            Checkpointer.write(checkpoint, file);
+            TrainingState state = Checkpointer.load(file.toString());
+
+            MLP resumed = MLP.zeros(state.inputSize, state.hiddenSize, state.outputSize);
+            TrainingReport rest = controller().resume(resumed, data, state);
+
+            assertArrayEquals(parameters(uninterrupted), parameters(resumed), "epoch " + state.epoch);
+            assertArrayEquals(full.trainLoss, rest.trainLoss);
+            assertArrayEquals(full.validationLoss, rest.validationLoss);
+            assertEquals(full.bestEpoch, rest.bestEpoch);
+        }
+    }
+
+    @Test
+    void initialWeightsAreKeptWhenNoEpochImproves() {
+        MLP mlp = new MLP(64, 16, 3, 5);
+        float[] initial = parameters(mlp);
+        // A NaN learning rate turns every loss into NaN, so no epoch is ever the best.
+        TrainingReport report = new TrainingController(3, 16, new AdamOptimizer(Float.NaN))
+                .validationSplit(0.2f)
+                .train(mlp, dataset(60, 64, 3));
+
+        assertEquals(-1, report.bestEpoch);
+        assertArrayEquals(initial, parameters(mlp));
+    }
+
+    @Test
+    void nonPositiveBatchSizeIsRejected() {
+        PackedDataset data = dataset(10, 64, 1);
+        MLP mlp = new MLP(64, 16, 3, 5);
+        assertThrows(IllegalArgumentException.class, () -> new TrainingController(1, 0, new AdamOptimizer(0.01f)));
+        assertThrows(IllegalArgumentException.class, () -> mlp.train(data, 1, 0.1f, 0));
+        assertThrows(IllegalArgumentException.class, () -> new StreamingTrainer(16)
+                .train(mlp, new GeneratedSampleSource(64, 10, (i, pixels) -> (int) (i % 3)), 1, -1, new SgdOptimizer(0.1f)));
+    }
+
+    private static TrainingController controller() {
+        return new TrainingController(EPOCHS, 16, new AdamOptimizer(0.01f))
+                .validationSplit(0.2f)
+                .patience(4, 0f)
+                .schedule(LearningRateSchedule.cosine(EPOCHS, 0f))
+                .seed(17);
+    }
+
+    // Each class lights up its own third of the pixels, plus noise.
+    private static PackedDataset dataset(int rows, int inputSize, long seed) {
+        Random rnd = new Random(seed);
+        PackedDataset data = new PackedDataset(inputSize);
+        float[] pixels = new float[inputSize];
+        for (int r = 0; r < rows; r++) {
+            int label = r % 3;
+            for (int i = 0; i < inputSize; i++) {
+                boolean own = i * 3 / inputSize == label;
+                pixels[i] = rnd.nextFloat() < (own ? 0.6f : 0.15f) ? 1f : 0f;
+            }
+            data.add(pixels, label);
+        }
+        return data;
+    }
+
+    private static float[] parameters(MLP mlp) {
+        float[] params = new float[mlp.parameterCount()];
+        mlp.writeParameters(FloatBuffer.wrap(params));
+        return params;
+    }
+}
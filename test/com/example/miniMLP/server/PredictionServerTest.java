@@ -0,0 +1,116 @@
+package com.example.miniMLP.server;
+
+import com.example.miniMLP.ml.MLP;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Base64;
+import java.util.StringJoiner;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PredictionServerTest {
+    private static final int INPUT = 16;
+
+    private final MLP mlp = new MLP(INPUT, 8, 3, 1);
+    private final HttpClient client = HttpClient.newHttpClient();
+    private PredictionServer server;
+
+    @BeforeEach
+    void start() throws IOException {
+        server = new PredictionServer(mlp, 0);
+        server.start();
+    }
+
+    @AfterEach
+    void stop() {
+        server.close();
+        client.close();
+    }
+
+    @Test
+    void validRequestsArePredicted() throws Exception {
+        float[] input = new float[INPUT];
+        for (int i = 0; i < INPUT; i += 3) {
+            input[i] = 1f;
+        }
+        String expected = "{\"index\":" + mlp.predict(input).predictedIndex + ",";
+
+        assertOk(expected, post(array(input)));
+        assertOk(expected, post(" {\n\"input\" : " + array(input) + "}\t"));
+        // Pixels 0, 3, 6, ... 15 set: bytes 0b01001001, 0b10010010.
+        String bits = Base64.getEncoder().encodeToString(new byte[]{0x49, (byte) 0x92});
+        assertOk(expected, post("{\"bits\":\"" + bits + "\"}"));
+    }
+
+    @Test
+    void malformedJsonIsRejected() throws Exception {
+        String valid = array(new float[INPUT]);
+        String[] bodies = {
+                "",
+                valid.substring(0, valid.length() - 1),
+                valid.replace("0.0,0.0", "0.0 0.0"),
+                valid.replace("]", ",]"),
+                valid + "]",
+                valid + " x",
+                valid.replace("0.0,", "NaN,"),
+                valid.replace("0.0,", "1e999,"),
+                valid.replace("0.0,", "01,"),
+                valid.replace("0.0,", "\"0\","),
+                "{\"input\":" + valid + ",\"bits\":\"AA==\"}",
+                "{\"pixels\":" + valid + "}",
+                "{\"bits\":\"A*A=\"}",
+                "{\"bits\":\"AA==}",
+                "prefix " + valid,
+        };
+        for (String body : bodies) {
+            HttpResponse<String> response = post(body);
+            assertEquals(400, response.statusCode(), body);
+            assertTrue(response.body().startsWith("{\"error\":\""), response.body());
+        }
+    }
+
+    @Test
+    void wrongLengthIsRejected() throws Exception {
+        HttpResponse<String> shorter = post(array(new float[INPUT - 1]));
+        assertEquals(400, shorter.statusCode());
+        assertTrue(shorter.body().contains("oczekiwano " + INPUT), shorter.body());
+
+        HttpResponse<String> longer = post("{\"input\":" + array(new float[INPUT + 1]) + "}");
+        assertEquals(400, longer.statusCode());
+        assertTrue(longer.body().contains("oczekiwano " + INPUT), longer.body());
+
+        assertEquals(400, post("[]").statusCode());
+        assertEquals(400, post("{\"bits\":\"AA==\"}").statusCode());
+    }
+
+    private static void assertOk(String prefix, HttpResponse<String> response) {
+        assertEquals(200, response.statusCode(), response.body());
+        assertTrue(response.body().startsWith(prefix), response.body());
+    }
+
+    private HttpResponse<String> post(String json) throws IOException, InterruptedException {
+        URI uri = URI.create("http://" + InetAddress.getLoopbackAddress().getHostAddress() + ":" + server.getPort() + "/predict");
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static String array(float[] values) {
+        StringJoiner sj = new StringJoiner(",", "[", "]");
+        for (float v : values) {
+            sj.add(Float.toString(v));
+        }
+        return sj.toString();
+    }
+}
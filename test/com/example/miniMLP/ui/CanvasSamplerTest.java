@@ -0,0 +1,100 @@
+package com.example.miniMLP.ui;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.event.MouseEvent;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+// Strokes are drawn through the real DrawingPanel mouse handlers, so the dirty rectangles are
+// the ones the app reports. After every stroke the incrementally updated matrix must equal a
+// full resample and a plain getRGB threshold of the canvas.
+class CanvasSamplerTest {
+    private static final int WIDTH = 600;
+    private static final int HEIGHT = 750;
+    private static final int GRID = 28;
+
+    @Test
+    void dirtyCellsMatchFullResampleOnGrayCanvas() {
+        checkStrokes(BufferedImage.TYPE_BYTE_GRAY, 1);
+    }
+
+    @Test
+    void dirtyCellsMatchFullResampleOnRgbCanvas() {
+        checkStrokes(BufferedImage.TYPE_INT_RGB, 2);
+    }
+
+    private static void checkStrokes(int type, long seed) {
+        BufferedImage canvas = new BufferedImage(WIDTH, HEIGHT, type);
+        Graphics2D g = canvas.createGraphics();
+        g.setColor(Color.WHITE);
+        g.fillRect(0, 0, WIDTH, HEIGHT);
+        g.dispose();
+
+        DrawingPanel panel = new DrawingPanel(canvas);
+        CanvasSampler sampler = new CanvasSampler(canvas, GRID);
+        List<Rectangle> strokes = new ArrayList<>();
+        panel.addStrokeListener(strokes::add);
+        float[][] pixels = new float[GRID][GRID];
+        sampler.sample(pixels);
+
+        Random rnd = new Random(seed);
+        for (int stroke = 0; stroke < 200; stroke++) {
+            int x = rnd.nextInt(WIDTH);
+            int y = rnd.nextInt(HEIGHT);
+            mouse(panel, MouseEvent.MOUSE_PRESSED, x, y);
+            for (int step = rnd.nextInt(4); step > 0; step--) {
+                x = Math.max(0, Math.min(WIDTH - 1, x + rnd.nextInt(81) - 40));
+                y = Math.max(0, Math.min(HEIGHT - 1, y + rnd.nextInt(81) - 40));
+                mouse(panel, MouseEvent.MOUSE_DRAGGED, x, y);
+            }
+            assertFalse(strokes.isEmpty(), "no stroke reported");
+            for (Rectangle bounds : strokes) {
+                sampler.markDirty(bounds);
+            }
+            strokes.clear();
+            sampler.sample(pixels);
+
+            float[][] full = new float[GRID][GRID];
+            new CanvasSampler(canvas, GRID).sample(full);
+            float[][] reference = threshold(canvas);
+            for (int row = 0; row < GRID; row++) {
+                assertArrayEquals(full[row], pixels[row], "stroke " + stroke + ", row " + row);
+                assertArrayEquals(reference[row], pixels[row], "stroke " + stroke + ", row " + row);
+            }
+        }
+    }
+
+    private static void mouse(DrawingPanel panel, int id, int x, int y) {
+        panel.dispatchEvent(new MouseEvent(panel, id, System.currentTimeMillis(), MouseEvent.BUTTON1_DOWN_MASK,
+                x, y, 1, false, MouseEvent.BUTTON1));
+    }
+
+    // The per-pixel getRGB loop CanvasSampler replaced.
+    private static float[][] threshold(BufferedImage canvas) {
+        int cellSize = canvas.getWidth() / GRID;
+        float[][] out = new float[GRID][GRID];
+        for (int y = 0; y < GRID; y++) {
+            for (int x = 0; x < GRID; x++) {
+                int dark = 0;
+                for (int dy = 0; dy < cellSize; dy++) {
+                    for (int dx = 0; dx < cellSize; dx++) {
+                        if ((canvas.getRGB(x * cellSize + dx, y * cellSize + dy) & 0xFF) < 128) {
+                            dark++;
+                        }
+                    }
+                }
+                out[y][x] = dark / (double) (cellSize * cellSize) > 0.2f ? 1f : 0f;
+            }
+        }
+        return out;
+    }
+}
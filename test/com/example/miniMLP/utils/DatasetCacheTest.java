@@ -0,0 +1,114 @@
+package com.example.miniMLP.utils;
+
+import com.example.miniMLP.ml.PackedDataset;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DatasetCacheTest {
+    private static final int GRID = 4;
+    private static final String LABELS = "elf";
+    // Rows enough for the edited first line to lie well over 64 KB before the end of the file.
+    private static final int ROWS = 4000;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void appendedRowsAreAddedToTheCache() throws IOException {
+        Path csv = dir.resolve("data.csv");
+        Files.writeString(csv, lines(30, 1));
+        DatasetCache.load(csv.toString(), GRID);
+
+        Files.writeString(csv, lines(12, 2), StandardOpenOption.APPEND);
+        assertSameAsFresh(csv);
+    }
+
+    @Test
+    void sameLengthEditEarlierInTheFileRebuilds() throws IOException {
+        Path csv = dir.resolve("data.csv");
+        Files.writeString(csv, lines(ROWS, 3));
+        assertEquals(0, DatasetCache.load(csv.toString(), GRID).label(0));
+
+        relabelFirstLine(csv);
+        assertSameAsFresh(csv);
+        assertEquals(2, DatasetCache.load(csv.toString(), GRID).label(0));
+    }
+
+    @Test
+    void editEarlierInTheFileIsNotAppendedTo() throws IOException {
+        Path csv = dir.resolve("data.csv");
+        Files.writeString(csv, lines(ROWS, 4));
+        DatasetCache.load(csv.toString(), GRID);
+
+        relabelFirstLine(csv);
+        Files.writeString(csv, lines(12, 5), StandardOpenOption.APPEND);
+        assertSameAsFresh(csv);
+    }
+
+    @Test
+    void touchedButUnchangedSourceKeepsTheCache() throws IOException {
+        Path csv = dir.resolve("data.csv");
+        Files.writeString(csv, lines(30, 6));
+        DatasetCache.load(csv.toString(), GRID);
+        Path cache = Path.of(DatasetCache.cacheFileFor(csv.toString()));
+        Object built = Files.readAttributes(cache, BasicFileAttributes.class).fileKey();
+
+        Files.setLastModifiedTime(csv, FileTime.fromMillis(Files.getLastModifiedTime(csv).toMillis() + 5000));
+        assertSameAsFresh(csv);
+        // A rebuild renames a new file over the cache; a verified one only has its header updated.
+        assertEquals(built, Files.readAttributes(cache, BasicFileAttributes.class).fileKey());
+    }
+
+    // Turns the leading "e" into "f": same length, so only a full checksum can tell.
+    private static void relabelFirstLine(Path csv) throws IOException {
+        long modified = Files.getLastModifiedTime(csv).toMillis();
+        byte[] bytes = Files.readAllBytes(csv);
+        bytes[0] = 'f';
+        Files.write(csv, bytes);
+        Files.setLastModifiedTime(csv, FileTime.fromMillis(modified + 5000));
+    }
+
+    private void assertSameAsFresh(Path csv) throws IOException {
+        Path copy = Files.createDirectories(dir.resolve("fresh")).resolve("data.csv");
+        Files.copy(csv, copy);
+        PackedDataset expected = DatasetCache.load(copy.toString(), GRID);
+        PackedDataset actual = DatasetCache.load(csv.toString(), GRID);
+
+        assertEquals(expected.size(), actual.size());
+        long[] want = new long[1];
+        long[] got = new long[1];
+        for (int i = 0; i < expected.size(); i++) {
+            expected.pack(i, want);
+            actual.pack(i, got);
+            assertEquals(expected.label(i), actual.label(i), "row " + i);
+            assertArrayEquals(want, got, "row " + i);
+        }
+        Files.delete(Path.of(DatasetCache.cacheFileFor(copy.toString())));
+        Files.delete(copy);
+    }
+
+    // The first row is always an "e", so a relabel of byte 0 keeps the line valid.
+    private static String lines(int rows, long seed) {
+        Random rnd = new Random(seed);
+        StringBuilder sb = new StringBuilder();
+        for (int r = 0; r < rows; r++) {
+            sb.append(LABELS.charAt(r % 3));
+            for (int i = 0; i < GRID * GRID; i++) {
+                sb.append(',').append(rnd.nextInt(2));
+            }
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+}
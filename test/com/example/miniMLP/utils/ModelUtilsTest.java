@@ -0,0 +1,88 @@
+package com.example.miniMLP.utils;
+
+import com.example.miniMLP.ml.HalfFormat;
+import com.example.miniMLP.ml.HalfMLP;
+import com.example.miniMLP.ml.MLP;
+import com.example.miniMLP.ml.Predictor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ModelUtilsTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void binaryModelRoundTripsBitForBit() {
+        MLP mlp = new MLP(784, 128, 3, 1);
+        String file = dir.resolve("model.bin").toString();
+        ModelUtils.saveModel(mlp, file);
+
+        assertArrayEquals(parameters(mlp), parameters(ModelUtils.loadModel(file)));
+        assertNotEquals(-1L, ModelUtils.checksum(file));
+    }
+
+    @Test
+    void halfModelRoundTripsInItsOwnPrecision() {
+        for (HalfFormat format : HalfFormat.values()) {
+            HalfMLP half = HalfMLP.convert(new MLP(64, 16, 3, 2), format);
+            String file = dir.resolve("model-" + format + ".bin").toString();
+            ModelUtils.saveModel(half, file);
+
+            Predictor loaded = ModelUtils.loadPredictor(file);
+            assertInstanceOf(HalfMLP.class, loaded);
+            assertArrayEquals(parameters(half), parameters((HalfMLP) loaded));
+        }
+    }
+
+    @Test
+    void legacySerializedModelStillLoads() throws IOException {
+        MLP mlp = new MLP(16, 8, 3, 3);
+        String file = dir.resolve("legacy.bin").toString();
+        try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(file))) {
+            out.writeObject(mlp);
+        }
+
+        assertArrayEquals(parameters(mlp), parameters(ModelUtils.loadModel(file)));
+    }
+
+    @Test
+    void corruptedPayloadIsRejected() throws IOException {
+        String file = dir.resolve("corrupt.bin").toString();
+        ModelUtils.saveModel(new MLP(16, 8, 3, 4), file);
+        try (FileChannel ch = FileChannel.open(Path.of(file), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer last = ByteBuffer.allocate(1);
+            ch.read(last, ch.size() - 1);
+            last.put(0, (byte) ~last.get(0));
+            ch.write(last.rewind(), ch.size() - 1);
+        }
+
+        assertNull(ModelUtils.loadPredictor(file));
+    }
+
+    private static float[] parameters(MLP mlp) {
+        float[] params = new float[mlp.parameterCount()];
+        mlp.writeParameters(FloatBuffer.wrap(params));
+        return params;
+    }
+
+    private static short[] parameters(HalfMLP mlp) {
+        short[] params = new short[mlp.parameterCount()];
+        mlp.writeParameters(ShortBuffer.wrap(params));
+        return params;
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.miniMLP.utils;
+
+import com.example.miniMLP.ml.MLP;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TrainingWatermarkTest {
+    private static final int INPUT = 16;
+    private static final String LINE = "e,0,1,0,1,0,1,0,1,0,1,0,1,0,1,0,1\n";
+    // Rows enough for the first line to lie well over 64 KB before the watermark.
+    private static final int ROWS = 4000;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void appendedRowsKeepTheWatermark() throws IOException {
+        Path csv = csv();
+        String model = saveWithWatermark(csv);
+        Files.writeString(csv, LINE.repeat(10), StandardOpenOption.APPEND);
+
+        TrainingWatermark seen = TrainingWatermark.load(model);
+        assertNotNull(seen);
+        assertTrue(seen.matches(model, csv.toString(), INPUT));
+    }
+
+    @Test
+    void editAnywhereInTheSeenRowsIsNoticed() throws IOException {
+        Path csv = csv();
+        String model = saveWithWatermark(csv);
+        byte[] bytes = Files.readAllBytes(csv);
+        bytes[0] = 'f';
+        Files.write(csv, bytes);
+
+        assertFalse(TrainingWatermark.load(model).matches(model, csv.toString(), INPUT));
+    }
+
+    @Test
+    void truncatedCsvIsNoticed() throws IOException {
+        Path csv = csv();
+        String model = saveWithWatermark(csv);
+        Files.writeString(csv, LINE.repeat(ROWS - 1));
+
+        assertFalse(TrainingWatermark.load(model).matches(model, csv.toString(), INPUT));
+    }
+
+    private Path csv() throws IOException {
+        return Files.writeString(dir.resolve("data.csv"), LINE.repeat(ROWS));
+    }
+
+    private String saveWithWatermark(Path csv) throws IOException {
+        String model = dir.resolve("model.bin").toString();
+        ModelUtils.saveModel(new MLP(INPUT, 8, 3, 1), model);
+        TrainingWatermark.of(csv.toString(), INPUT, ROWS, ROWS, Files.size(csv)).save(model);
+        return model;
+    }
+}